@@ -3,6 +3,7 @@ import authentication.AuthFactory;
 import authentication.session.UserSession;
 import authentication.session.UserState;
 import controllers.*;
+import domain.loan.LoanEventListener;
 import domain.user.*;
 import policies.FinePolicy;
 import policies.fines.FlatFinePolicy;
@@ -57,6 +58,8 @@ public class Main {
         // Core business logic services
         CatalogService catalog = new CatalogService(mediaRepo, invRepo);
         LoanService loanService = new LoanService(invRepo, loanRepo, loanRule, finePolicy, clock);
+        // Members with an overdue loan are held until they return it
+        loanService.addLoanEventListener(LoanEventListener.blockOnOverdue());
 
         // 5. Load Initial Data
         // Populate the system with data from CSV files
@@ -84,6 +87,9 @@ public class Main {
                     libController.guestDashboard();
                 }
             } else {
+                // Fire the due and overdue events the clock has reached since the
+                // last login, so blocks apply before the dashboard opens
+                loanService.processDueEvents();
                 // User is logged in, route to appropriate dashboard based on role
                 Optional<User> currentUser = session.getCurrentUser();
                 if (currentUser.isPresent()) {
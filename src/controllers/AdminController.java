@@ -136,12 +136,8 @@ public class AdminController {
      * Filters out non-member users (like librarians) from the list.
      */
     private void manageUsers() {
-        List<User> users = userRepo.findAll();
-        // Filter: Keep only users who are instances of Member
-        List<Member> members = users.stream()
-                .filter(u -> u instanceof Member)
-                .map(u -> (Member) u)
-                .toList();
+        // Keep only users who are instances of Member, without copying all users
+        List<Member> members = userRepo.stream(Member.class).toList();
 
         if (members.isEmpty()) {
             view.showMessage("No registered members found.");
@@ -195,9 +191,11 @@ public class AdminController {
 
     /**
      * Displays all loans that are currently overdue.
-     * Uses the loan service to fetch data based on the current date.
+     * Uses the loan service to fetch data based on the current date, after
+     * firing any due events that have come up since they last ran.
      */
     private void viewOverdueLoans() {
+        loans.processDueEvents();
         // Fetch overdue loans from service
         var overdue = loans.overdueLoans();
 
@@ -0,0 +1,94 @@
+package domain;
+
+import domain.media.MediaItem;
+
+import java.util.*;
+
+/**
+ * Counts of a result set broken down by media type, category and decade.
+ * An item with several categories counts once in each of them.
+ *
+ * @param types      item count per media type (e.g. "Book"), by name
+ * @param categories item count per category, in enum order
+ * @param decades    item count per decade (1990 means 1990-1999), ascending
+ */
+public record Facets(Map<String, Integer> types, Map<Category, Integer> categories,
+        Map<Integer, Integer> decades) {
+    /**
+     * Compact constructor that makes the count maps immutable while keeping
+     * their order.
+     *
+     * @param types      counts per media type
+     * @param categories counts per category
+     * @param decades    counts per decade
+     */
+    public Facets {
+        types = Collections.unmodifiableMap(new TreeMap<>(types));
+        categories = Collections.unmodifiableMap(new EnumMap<>(categories));
+        decades = Collections.unmodifiableMap(new TreeMap<>(decades));
+    }
+
+    /**
+     * Counts the facets of a collection of items.
+     *
+     * @param items the items to count
+     * @return the facet counts
+     */
+    public static Facets of(Collection<? extends MediaItem> items) {
+        Counter counter = new Counter();
+        for (MediaItem item : items) {
+            counter.add(item);
+        }
+        return counter.build();
+    }
+
+    /**
+     * Formats the type counts for display, e.g. "Book (120) / CD (14)".
+     *
+     * @return the type summary, or an empty string if there are no items
+     */
+    public String typeSummary() {
+        StringJoiner out = new StringJoiner(" / ");
+        types.forEach((type, n) -> out.add(type + " (" + n + ")"));
+        return out.toString();
+    }
+
+    /**
+     * Accumulates facet counts one item at a time, so they can be gathered
+     * in the same pass that produces a result list.
+     */
+    public static final class Counter {
+        private final Map<String, Integer> types = new HashMap<>();
+        private final int[] categories = new int[Category.values().length];
+        private final Map<Integer, Integer> decades = new HashMap<>();
+
+        /**
+         * Counts one item.
+         *
+         * @param item the item to count
+         */
+        public void add(MediaItem item) {
+            types.merge(item.getClass().getSimpleName(), 1, Integer::sum);
+            for (Category c : item.getCategories()) {
+                categories[c.ordinal()]++;
+            }
+            int year = item.getYear();
+            decades.merge(year - Math.floorMod(year, 10), 1, Integer::sum);
+        }
+
+        /**
+         * Creates the facet counts gathered so far.
+         *
+         * @return the facet counts
+         */
+        public Facets build() {
+            Map<Category, Integer> byCategory = new EnumMap<>(Category.class);
+            for (Category c : Category.values()) {
+                if (categories[c.ordinal()] > 0) {
+                    byCategory.put(c, categories[c.ordinal()]);
+                }
+            }
+            return new Facets(types, byCategory, decades);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package domain;
+
+import java.util.List;
+
+/**
+ * One page of a larger result set.
+ *
+ * @param items      the items on this page
+ * @param nextCursor opaque token for fetching the next page, or null if this
+ *                   is the last page
+ * @param total      total number of results across all pages
+ * @param <T>        type of the items
+ */
+public record Page<T>(List<T> items, String nextCursor, int total) {
+    /**
+     * Compact constructor that makes the item list immutable.
+     *
+     * @param items      page items
+     * @param nextCursor next page token
+     * @param total      total result count
+     */
+    public Page {
+        items = List.copyOf(items);
+    }
+
+    /**
+     * Checks if more results follow this page.
+     *
+     * @return true if a next cursor is present
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
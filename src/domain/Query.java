@@ -1,39 +1,94 @@
 package domain;
 
-import java.util.Locale;
+import util.TextNormalizer;
+import util.Validation;
 
 /**
  * Represents a search query for the catalog.
- * Stores normalized criteria for title, creator, or year.
+ * Stores normalized criteria for title, creator, and an inclusive year range.
  *
- * @param title   text to match in title (partial)
- * @param creator text to match in creators (partial)
- * @param year    exact year to match
+ * @param title    text to match in title (partial)
+ * @param creator  text to match in creators (partial)
+ * @param yearFrom earliest year to match (inclusive), or null for no lower bound
+ * @param yearTo   latest year to match (inclusive), or null for no upper bound
  */
-public record Query(String title, String creator, Integer year) {
+public record Query(String title, String creator, Integer yearFrom, Integer yearTo) {
     /**
-     * Compact constructor that normalizes input strings.
-     * Trims and converts to lowercase.
-     * 
+     * Compact constructor that normalizes input strings and checks the range.
+     * Trims, converts to lowercase and removes accents.
+     *
+     * @param title    raw title query
+     * @param creator  raw creator query
+     * @param yearFrom lower year bound
+     * @param yearTo   upper year bound
+     */
+    public Query {
+        title = TextNormalizer.normalize(title);
+        creator = TextNormalizer.normalize(creator);
+        Validation.require(yearFrom == null || yearTo == null || yearFrom <= yearTo,
+                "yearFrom must be <= yearTo");
+    }
+
+    /**
+     * Creates a query with an exact year.
+     *
      * @param title   raw title query
      * @param creator raw creator query
-     * @param year    raw year query
+     * @param year    exact year to match, or null for any year
      */
-    public Query {
-        title = normalize(title);
-        creator = normalize(creator);
+    public Query(String title, String creator, Integer year) {
+        this(title, creator, year, year);
+    }
+
+    /**
+     * Gets the exact year this query matches, if the range is a single year.
+     *
+     * @return the year, or null if the query has no year or spans several years
+     */
+    public Integer year() {
+        return yearFrom != null && yearFrom.equals(yearTo) ? yearFrom : null;
+    }
+
+    /**
+     * Checks if the query restricts the title or creator text.
+     *
+     * @return true if title or creator criteria are present
+     */
+    public boolean hasText() {
+        return title != null || creator != null;
+    }
+
+    /**
+     * Checks if the query restricts the year.
+     *
+     * @return true if either year bound is present
+     */
+    public boolean hasYearFilter() {
+        return yearFrom != null || yearTo != null;
+    }
+
+    /**
+     * Checks if the query has any criteria at all.
+     *
+     * @return true if the query would filter the catalog
+     */
+    public boolean hasCriteria() {
+        return hasText() || hasYearFilter();
     }
 
-    private static String normalize(String s) {
-        if (s == null)
-            return null;
-        String t = s.trim().toLowerCase(Locale.ROOT);
-        return t.isEmpty() ? null : t;
+    /**
+     * Checks if a year falls inside the query's range.
+     *
+     * @param year the year to test
+     * @return true if within the range (always true without a year filter)
+     */
+    public boolean matchesYear(int year) {
+        return (yearFrom == null || year >= yearFrom) && (yearTo == null || year <= yearTo);
     }
 
     /**
      * Creates a query searching only by title.
-     * 
+     *
      * @param title title text
      * @return a new Query object
      */
@@ -43,7 +98,7 @@ public record Query(String title, String creator, Integer year) {
 
     /**
      * Creates a query searching only by creator.
-     * 
+     *
      * @param creator creator text
      * @return a new Query object
      */
@@ -53,11 +108,45 @@ public record Query(String title, String creator, Integer year) {
 
     /**
      * Creates a query searching only by year.
-     * 
+     *
      * @param year exact year
      * @return a new Query object
      */
     public static Query byYear(int year) {
         return new Query(null, null, year);
     }
+
+    /**
+     * Creates a query searching only by an inclusive year range.
+     *
+     * @param from earliest year, or null for no lower bound
+     * @param to   latest year, or null for no upper bound
+     * @return a new Query object
+     */
+    public static Query byYearRange(Integer from, Integer to) {
+        return new Query(null, null, from, to);
+    }
+
+    /**
+     * Creates a query searching only by decade (e.g. 1990 or 1994 both mean
+     * 1990-1999).
+     *
+     * @param decade any year within the decade
+     * @return a new Query object
+     */
+    public static Query byDecade(int decade) {
+        int start = decade - Math.floorMod(decade, 10);
+        return new Query(null, null, start, start + 9);
+    }
+
+    /**
+     * Returns a copy of this query restricted to a year range.
+     *
+     * @param from earliest year, or null for no lower bound
+     * @param to   latest year, or null for no upper bound
+     * @return a new Query object with the same text criteria
+     */
+    public Query withYears(Integer from, Integer to) {
+        return new Query(title, creator, from, to);
+    }
 }
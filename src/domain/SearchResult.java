@@ -0,0 +1,23 @@
+package domain;
+
+import domain.media.MediaItem;
+
+import java.util.List;
+
+/**
+ * The full result of a catalog search together with its facet counts.
+ *
+ * @param items  matching items
+ * @param facets counts of the matching items by type, category and decade
+ */
+public record SearchResult(List<MediaItem> items, Facets facets) {
+    /**
+     * Compact constructor that makes the item list immutable.
+     *
+     * @param items  matching items
+     * @param facets facet counts
+     */
+    public SearchResult {
+        items = List.copyOf(items);
+    }
+}
@@ -3,18 +3,35 @@ package domain.inventory;
 import domain.media.MediaItem;
 import util.Validation;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Locale;
 import java.util.UUID;
 
 /**
  * Represents a physical copy (a holding) of a media item in the library
  * inventory.
  * Each holding has a unique ID and a status (e.g. AVAILABLE, ON_LOAN).
+ * Status changes are compare-and-set operations, so when several threads try
+ * the same transition exactly one of them succeeds, without any lock.
  */
 public final class Holding {
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(Holding.class, "status", HoldingStatus.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final UUID id;
     private final MediaItem item;
     private final String shelfLocation;
-    private HoldingStatus status;
+    private final String barcode;
+    private volatile HoldingStatus status;
+    private volatile HoldingListener listener;
 
     /**
      * Creates a new holding for a media item.
@@ -32,10 +49,35 @@ public final class Holding {
      * @param shelfLocation description of where it is stored
      */
     public Holding(MediaItem item, String shelfLocation) {
+        this(item, shelfLocation, null);
+    }
+
+    /**
+     * Creates a new holding with a shelf location and a copy barcode.
+     *
+     * @param item          the media item
+     * @param shelfLocation description of where it is stored
+     * @param barcode       the label scanned at the desk, or null if unlabelled
+     */
+    public Holding(MediaItem item, String shelfLocation, String barcode) {
         this.id = UUID.randomUUID();
         this.item = Validation.nonNull(item, "item");
         this.status = HoldingStatus.AVAILABLE;
         this.shelfLocation = shelfLocation == null ? "" : shelfLocation.trim();
+        this.barcode = normalizeBarcode(barcode);
+    }
+
+    /**
+     * Normalizes a barcode as scanned or typed: trimmed and upper-cased.
+     *
+     * @param barcode raw barcode
+     * @return normalized barcode, or null if null or blank
+     */
+    public static String normalizeBarcode(String barcode) {
+        if (barcode == null || barcode.isBlank()) {
+            return null;
+        }
+        return barcode.trim().toUpperCase(Locale.ROOT);
     }
 
     /**
@@ -65,6 +107,15 @@ public final class Holding {
         return shelfLocation;
     }
 
+    /**
+     * Gets the copy barcode.
+     * 
+     * @return the normalized barcode, or null if the copy has none
+     */
+    public String getBarcode() {
+        return barcode;
+    }
+
     /**
      * Gets the current status of the holding.
      * 
@@ -74,13 +125,33 @@ public final class Holding {
         return status;
     }
 
+    /**
+     * Registers the listener notified on every status change.
+     * Replaces any previously registered listener.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public void setListener(HoldingListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Atomically moves the holding from AVAILABLE to ON_LOAN.
+     * When several callers race for the same copy, exactly one gets true.
+     *
+     * @return true if this call put the copy on loan, false if it was not
+     *         AVAILABLE
+     */
+    public boolean tryMarkOnLoan() {
+        return transition(HoldingStatus.AVAILABLE, HoldingStatus.ON_LOAN);
+    }
+
     /**
      * Updates status to ON_LOAN.
      * Throws exception if item is not currently AVAILABLE.
      */
     public void markOnLoan() {
-        Validation.require(status == HoldingStatus.AVAILABLE, "Holding must be AVAILABLE to loan");
-        status = HoldingStatus.ON_LOAN;
+        Validation.require(tryMarkOnLoan(), "Holding must be AVAILABLE to loan");
     }
 
     /**
@@ -88,8 +159,8 @@ public final class Holding {
      * Throws exception if item is not currently ON_LOAN.
      */
     public void markReturned() {
-        Validation.require(status == HoldingStatus.ON_LOAN, "Holding must be ON_LOAN to return");
-        status = HoldingStatus.AVAILABLE;
+        Validation.require(transition(HoldingStatus.ON_LOAN, HoldingStatus.AVAILABLE),
+                "Holding must be ON_LOAN to return");
     }
 
     /**
@@ -97,9 +168,7 @@ public final class Holding {
      * Allowed from AVAILABLE or ON_LOAN states.
      */
     public void markLost() {
-        Validation.require(status == HoldingStatus.ON_LOAN || status == HoldingStatus.AVAILABLE,
-                "Illegal transition to LOST");
-        status = HoldingStatus.LOST;
+        Validation.require(transitionFromShelfOrLoan(HoldingStatus.LOST), "Illegal transition to LOST");
     }
 
     /**
@@ -107,8 +176,31 @@ public final class Holding {
      * Allowed from AVAILABLE or ON_LOAN states.
      */
     public void markDamaged() {
-        Validation.require(status == HoldingStatus.ON_LOAN || status == HoldingStatus.AVAILABLE,
-                "Illegal transition to DAMAGED");
-        status = HoldingStatus.DAMAGED;
+        Validation.require(transitionFromShelfOrLoan(HoldingStatus.DAMAGED), "Illegal transition to DAMAGED");
+    }
+
+    // Retries while the status keeps changing between AVAILABLE and ON_LOAN
+    private boolean transitionFromShelfOrLoan(HoldingStatus to) {
+        while (true) {
+            HoldingStatus from = status;
+            if (from != HoldingStatus.ON_LOAN && from != HoldingStatus.AVAILABLE) {
+                return false;
+            }
+            if (transition(from, to)) {
+                return true;
+            }
+        }
+    }
+
+    // Compare-and-set; the listener only hears about transitions that happened
+    private boolean transition(HoldingStatus from, HoldingStatus to) {
+        if (!STATUS.compareAndSet(this, from, to)) {
+            return false;
+        }
+        HoldingListener l = listener;
+        if (l != null) {
+            l.statusChanged(this, from, to);
+        }
+        return true;
     }
 }
@@ -0,0 +1,17 @@
+package domain.inventory;
+
+/**
+ * Callback notified whenever a holding changes status.
+ * Lets repositories keep derived counters in step with the holding itself.
+ */
+@FunctionalInterface
+public interface HoldingListener {
+    /**
+     * Called after a holding has moved from one status to another.
+     *
+     * @param holding the holding that changed
+     * @param from    the previous status
+     * @param to      the new status
+     */
+    void statusChanged(Holding holding, HoldingStatus from, HoldingStatus to);
+}
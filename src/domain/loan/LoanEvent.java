@@ -0,0 +1,22 @@
+package domain.loan;
+
+import java.time.LocalDate;
+
+/**
+ * A date-driven event in the life of a loan, raised by the due-date scheduler.
+ *
+ * @param type the kind of event
+ * @param loan the loan concerned
+ * @param date the date the event is for
+ */
+public record LoanEvent(Type type, Loan loan, LocalDate date) {
+    /**
+     * Kinds of loan events, in the order they occur.
+     */
+    public enum Type {
+        /** The loan is due back today; a reminder is in order. */
+        DUE,
+        /** The loan was not returned by its due date. */
+        OVERDUE
+    }
+}
@@ -0,0 +1,40 @@
+package domain.loan;
+
+import domain.user.Member;
+
+/**
+ * Callback notified when a scheduled loan event fires.
+ * Lets reminders, overdue handling or automatic blocking react at the right
+ * date without polling the loan table.
+ */
+@FunctionalInterface
+public interface LoanEventListener {
+    /**
+     * Called once for each event, after the clock has reached its date.
+     *
+     * @param event the event that fired
+     */
+    void onLoanEvent(LoanEvent event);
+
+    /**
+     * Returns a listener that holds the borrower of a loan once it becomes
+     * overdue. The hold is kept apart from a librarian's block and is lifted
+     * when the loan is returned.
+     *
+     * @return the blocking listener
+     */
+    static LoanEventListener blockOnOverdue() {
+        return event -> {
+            if (event.type() == LoanEvent.Type.OVERDUE) {
+                Loan loan = event.loan();
+                Member borrower = loan.getBorrower();
+                borrower.holdForOverdue(loan.getId());
+                // A return racing with this event has released the hold before
+                // it was placed, so release it again
+                if (loan.isReturned()) {
+                    borrower.releaseOverdueHold(loan.getId());
+                }
+            }
+        };
+    }
+}
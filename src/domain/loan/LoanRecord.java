@@ -0,0 +1,39 @@
+package domain.loan;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Read-only history row of a returned loan.
+ * Holds ids instead of the holding and member objects, so archived loans do
+ * not keep either alive.
+ *
+ * @param loanId     the loan id
+ * @param holdingId  id of the copy that was lent
+ * @param memberId   id of the borrower
+ * @param loanedOn   date the loan started
+ * @param dueOn      date the copy was due back
+ * @param returnedOn date the copy came back
+ * @param fineCents  fine charged on return, in cents
+ */
+public record LoanRecord(UUID loanId, UUID holdingId, UUID memberId, LocalDate loanedOn, LocalDate dueOn,
+        LocalDate returnedOn, long fineCents) {
+    /**
+     * Gets the fine charged on return.
+     *
+     * @return the fine as a decimal amount
+     */
+    public BigDecimal fine() {
+        return BigDecimal.valueOf(fineCents, 2);
+    }
+
+    /**
+     * Checks whether the copy came back after its due date.
+     *
+     * @return true if returned late
+     */
+    public boolean returnedLate() {
+        return returnedOn.isAfter(dueOn);
+    }
+}
@@ -0,0 +1,31 @@
+package domain.loan;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Report of a bulk return run, such as emptying the book drop.
+ *
+ * @param returned      number of loans returned
+ * @param skipped       ids that were unknown, already returned or could not be
+ *                      returned
+ * @param finesByMember fine charged to each member with at least one late item
+ * @param totalFines    sum of all fines charged
+ */
+public record ReturnSummary(int returned, List<UUID> skipped, Map<UUID, BigDecimal> finesByMember,
+        BigDecimal totalFines) {
+    /**
+     * Compact constructor that makes the collections immutable.
+     *
+     * @param returned      loans returned
+     * @param skipped       ids not returned
+     * @param finesByMember fines per member
+     * @param totalFines    total fines
+     */
+    public ReturnSummary {
+        skipped = List.copyOf(skipped);
+        finesByMember = Map.copyOf(finesByMember);
+    }
+}
@@ -2,12 +2,12 @@ package domain.media;
 
 import domain.Category;
 import domain.Query;
+import util.TextNormalizer;
 import util.Validation;
 
 import java.util.UUID;
 import java.util.List;
 import java.util.Set;
-import java.util.Locale;
 import java.util.Objects;
 
 /**
@@ -21,6 +21,10 @@ public abstract class MediaItem {
     private int year;
     private Set<Category> categories;
 
+    // Normalized search keys, computed once per change so matching never allocates
+    private String titleKey;
+    private String[] creatorKeys;
+
     /**
      * Initializes a new MediaItem.
      *
@@ -62,6 +66,17 @@ public abstract class MediaItem {
      */
     public void setTitle(String title) {
         this.title = Validation.nonBlank(title, "title");
+        this.titleKey = TextNormalizer.normalize(this.title);
+    }
+
+    /**
+     * Gets the normalized (lowercase, accent-free) title used for searching and
+     * sorting.
+     * 
+     * @return the title search key
+     */
+    public String getTitleKey() {
+        return titleKey;
     }
 
     /**
@@ -80,6 +95,12 @@ public abstract class MediaItem {
      */
     public void setCreators(List<String> creators) {
         this.creators = List.copyOf(Validation.nonNull(creators, "creators"));
+        String[] keys = new String[this.creators.size()];
+        for (int i = 0; i < keys.length; i++) {
+            String key = TextNormalizer.normalize(this.creators.get(i));
+            keys[i] = key == null ? "" : key;
+        }
+        this.creatorKeys = keys;
     }
 
     /**
@@ -121,8 +142,9 @@ public abstract class MediaItem {
 
     /**
      * Checks if this item matches the given search query.
-     * Matches against title and creators (case-insensitive partial match)
-     * and year (exact match).
+     * Matches against title and creators (case- and accent-insensitive partial
+     * match) and year (inclusive range).
+     * Uses the precomputed search keys, so no objects are allocated per call.
      *
      * @param q the search query object
      * @return true if it matches, false otherwise
@@ -132,34 +154,28 @@ public abstract class MediaItem {
             return true;
         }
 
+        // Year range: AND with text (cheapest check first)
+        if (!q.matchesYear(year)) {
+            return false;
+        }
+
         // Title/creator text: OR semantics when both are provided
-        boolean hasTitle = q.title() != null && !q.title().isBlank();
-        boolean hasCreator = q.creator() != null && !q.creator().isBlank();
-
-        boolean textMatches;
-        if (!hasTitle && !hasCreator) {
-            textMatches = true;
-        } else {
-            boolean titleMatches = false;
-            boolean creatorMatches = false;
-
-            if (hasTitle) {
-                String t = title.toLowerCase(Locale.ROOT);
-                titleMatches = t.contains(q.title());
-            }
-            if (hasCreator) {
-                String c = q.creator();
-                creatorMatches = creators.stream()
-                        .map(s -> s.toLowerCase(Locale.ROOT))
-                        .anyMatch(s -> s.contains(c));
+        String t = q.title();
+        String c = q.creator();
+        if (t == null && c == null) {
+            return true;
+        }
+        if (t != null && titleKey.contains(t)) {
+            return true;
+        }
+        if (c != null) {
+            for (String key : creatorKeys) {
+                if (key.contains(c)) {
+                    return true;
+                }
             }
-            textMatches = titleMatches || creatorMatches;
         }
-
-        // Year: AND with text
-        boolean yearMatches = q.year() == null || Objects.equals(year, q.year());
-
-        return textMatches && yearMatches;
+        return false;
     }
 
     /**
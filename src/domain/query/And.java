@@ -0,0 +1,38 @@
+package domain.query;
+
+import domain.media.MediaItem;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Conjunction: matches items that satisfy every part.
+ *
+ * @param parts the combined expressions (at least two)
+ */
+public record And(List<Expr> parts) implements Expr {
+    /**
+     * Compact constructor that makes the part list immutable.
+     *
+     * @param parts the combined expressions
+     */
+    public And {
+        parts = List.copyOf(parts);
+    }
+
+    @Override
+    public boolean test(MediaItem item) {
+        for (Expr part : parts) {
+            if (!part.test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return parts.stream().map(p -> p instanceof Or ? "(" + p + ")" : p.toString())
+                .collect(Collectors.joining(" AND "));
+    }
+}
@@ -0,0 +1,21 @@
+package domain.query;
+
+import domain.Category;
+import domain.media.MediaItem;
+
+/**
+ * Matches items belonging to a category.
+ *
+ * @param category the required category
+ */
+public record CategoryTerm(Category category) implements Expr {
+    @Override
+    public boolean test(MediaItem item) {
+        return item.getCategories().contains(category);
+    }
+
+    @Override
+    public String toString() {
+        return "category:" + category;
+    }
+}
@@ -0,0 +1,18 @@
+package domain.query;
+
+import domain.media.MediaItem;
+
+/**
+ * A node of a parsed catalog query: a boolean combination of predicates over
+ * media items.
+ * {@link #toString()} renders the node back in query-language syntax.
+ */
+public sealed interface Expr permits And, Or, Not, TextTerm, YearTerm, CategoryTerm, TypeTerm {
+    /**
+     * Checks if an item satisfies this expression.
+     *
+     * @param item the media item
+     * @return true if it matches
+     */
+    boolean test(MediaItem item);
+}
@@ -0,0 +1,20 @@
+package domain.query;
+
+import domain.media.MediaItem;
+
+/**
+ * Negation: matches items that do not satisfy the inner expression.
+ *
+ * @param inner the negated expression
+ */
+public record Not(Expr inner) implements Expr {
+    @Override
+    public boolean test(MediaItem item) {
+        return !inner.test(item);
+    }
+
+    @Override
+    public String toString() {
+        return inner instanceof And || inner instanceof Or ? "-(" + inner + ")" : "-" + inner;
+    }
+}
@@ -0,0 +1,38 @@
+package domain.query;
+
+import domain.media.MediaItem;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Disjunction: matches items that satisfy at least one part.
+ *
+ * @param parts the alternative expressions (at least two)
+ */
+public record Or(List<Expr> parts) implements Expr {
+    /**
+     * Compact constructor that makes the part list immutable.
+     *
+     * @param parts the alternative expressions
+     */
+    public Or {
+        parts = List.copyOf(parts);
+    }
+
+    @Override
+    public boolean test(MediaItem item) {
+        for (Expr part : parts) {
+            if (part.test(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return parts.stream().map(p -> p instanceof And ? "(" + p + ")" : p.toString())
+                .collect(Collectors.joining(" OR "));
+    }
+}
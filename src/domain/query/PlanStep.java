@@ -0,0 +1,15 @@
+package domain.query;
+
+/**
+ * One step of an executed query plan.
+ *
+ * @param operation what the step did ("index", "filter" or "scan")
+ * @param predicate the predicate it evaluated, in query syntax
+ * @param rows      number of candidates left after the step
+ */
+public record PlanStep(String operation, String predicate, int rows) {
+    @Override
+    public String toString() {
+        return String.format("%-6s %s -> %d", operation, predicate, rows);
+    }
+}
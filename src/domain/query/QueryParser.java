@@ -0,0 +1,237 @@
+package domain.query;
+
+import domain.Category;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the catalog query language into an {@link Expr} tree.
+ * <p>
+ * Syntax, from loosest to tightest binding:
+ * <ul>
+ * <li>{@code a OR b} - either side matches</li>
+ * <li>{@code a AND b}, or just {@code a b} - both sides match</li>
+ * <li>{@code -a} or {@code NOT a} - a does not match; {@code ( ... )}
+ * groups</li>
+ * <li>{@code title:x}, {@code creator:x} - partial text match; a bare word
+ * matches the title or a creator; quote phrases with spaces</li>
+ * <li>{@code year:2010}, {@code year:2010..2020}, {@code year:2010..},
+ * {@code year:..2020} - inclusive year range</li>
+ * <li>{@code category:HORROR} and {@code type:book|cd|dvd}</li>
+ * </ul>
+ * Keywords are upper case, so "and" or "or" in lower case are searched as
+ * words. Example: {@code title:river AND creator:williams year:2010..2020
+ * -category:HORROR type:book}.
+ * </p>
+ */
+public final class QueryParser {
+    private static final Pattern YEAR_RANGE = Pattern.compile("(\\d+)?\\.\\.(\\d+)?");
+    private static final Pattern YEAR = Pattern.compile("\\d+");
+    private static final Set<String> FIELDS = Set.of("title", "creator", "year", "category", "type");
+    private static final Map<String, String> TYPES = Map.of("book", "Book", "cd", "CD", "dvd", "DVD");
+
+    private enum Kind {
+        OPEN, CLOSE, NEGATE, AND, OR, TERM, END
+    }
+
+    private record Token(Kind kind, String field, String value) {
+    }
+
+    private final List<Token> tokens;
+    private int pos;
+
+    private QueryParser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a query string.
+     *
+     * @param text the query in query-language syntax
+     * @return the parsed expression
+     * @throws IllegalArgumentException if the query is empty or malformed
+     */
+    public static Expr parse(String text) {
+        QueryParser parser = new QueryParser(lex(text == null ? "" : text));
+        if (parser.peek() == Kind.END) {
+            throw new IllegalArgumentException("Query is empty");
+        }
+        Expr expr = parser.parseOr();
+        if (parser.peek() != Kind.END) {
+            throw new IllegalArgumentException("Unexpected " + parser.describe(parser.tokens.get(parser.pos)));
+        }
+        return expr;
+    }
+
+    private Expr parseOr() {
+        List<Expr> parts = new ArrayList<>();
+        add(parts, parseAnd(), Or.class);
+        while (peek() == Kind.OR) {
+            pos++;
+            add(parts, parseAnd(), Or.class);
+        }
+        return parts.size() == 1 ? parts.get(0) : new Or(parts);
+    }
+
+    private Expr parseAnd() {
+        List<Expr> parts = new ArrayList<>();
+        add(parts, parseUnary(), And.class);
+        while (peek() != Kind.OR && peek() != Kind.CLOSE && peek() != Kind.END) {
+            if (peek() == Kind.AND) {
+                pos++;
+            }
+            add(parts, parseUnary(), And.class);
+        }
+        return parts.size() == 1 ? parts.get(0) : new And(parts);
+    }
+
+    private Expr parseUnary() {
+        Token t = tokens.get(pos++);
+        switch (t.kind()) {
+            case NEGATE:
+                return new Not(parseUnary());
+            case OPEN:
+                Expr inner = parseOr();
+                if (peek() != Kind.CLOSE) {
+                    throw new IllegalArgumentException("Missing closing parenthesis");
+                }
+                pos++;
+                return inner;
+            case TERM:
+                return term(t.field(), t.value());
+            default:
+                throw new IllegalArgumentException("Unexpected " + describe(t));
+        }
+    }
+
+    // Flattens nested operators of the same kind, e.g. (a AND b) AND c
+    private static void add(List<Expr> parts, Expr e, Class<? extends Expr> kind) {
+        if (kind == And.class && e instanceof And a) {
+            parts.addAll(a.parts());
+        } else if (kind == Or.class && e instanceof Or o) {
+            parts.addAll(o.parts());
+        } else {
+            parts.add(e);
+        }
+    }
+
+    private static Expr term(String field, String value) {
+        if (value.isBlank()) {
+            throw new IllegalArgumentException("Missing value" + (field == null ? "" : " for " + field));
+        }
+        if (field == null) {
+            return TextTerm.of("any", value);
+        }
+        switch (field) {
+            case "title":
+            case "creator":
+                return TextTerm.of(field, value);
+            case "year":
+                return year(value);
+            case "category":
+                try {
+                    return new CategoryTerm(Category.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_')));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown category: " + value);
+                }
+            default:
+                String type = TYPES.get(value.toLowerCase(Locale.ROOT));
+                if (type == null) {
+                    throw new IllegalArgumentException("Unknown type: " + value + " (expected book, cd or dvd)");
+                }
+                return new TypeTerm(type);
+        }
+    }
+
+    private static Expr year(String value) {
+        try {
+            if (YEAR.matcher(value).matches()) {
+                int year = Integer.parseInt(value);
+                return YearTerm.of(year, year);
+            }
+            Matcher m = YEAR_RANGE.matcher(value);
+            if (m.matches() && (m.group(1) != null || m.group(2) != null)) {
+                Integer from = m.group(1) == null ? null : Integer.valueOf(m.group(1));
+                Integer to = m.group(2) == null ? null : Integer.valueOf(m.group(2));
+                return YearTerm.of(from, to);
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the error below
+        }
+        throw new IllegalArgumentException("Invalid year: " + value + " (expected 2010 or 2010..2020)");
+    }
+
+    private Kind peek() {
+        return tokens.get(pos).kind();
+    }
+
+    private String describe(Token t) {
+        return switch (t.kind()) {
+            case OPEN -> "'('";
+            case CLOSE -> "')'";
+            case NEGATE -> "'-'";
+            case END -> "end of query";
+            default -> "'" + t.value() + "'";
+        };
+    }
+
+    private static List<Token> lex(String s) {
+        List<Token> out = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                out.add(new Token(c == '(' ? Kind.OPEN : Kind.CLOSE, null, String.valueOf(c)));
+                i++;
+            } else if (c == '-' && i + 1 < s.length() && !Character.isWhitespace(s.charAt(i + 1))) {
+                out.add(new Token(Kind.NEGATE, null, "-"));
+                i++;
+            } else if (c == '"') {
+                int end = closingQuote(s, i);
+                out.add(new Token(Kind.TERM, null, s.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < s.length() && !Character.isWhitespace(s.charAt(end))
+                        && "()\"".indexOf(s.charAt(end)) < 0) {
+                    end++;
+                }
+                String word = s.substring(i, end);
+                int colon = word.indexOf(':');
+                String field = colon > 0 ? word.substring(0, colon).toLowerCase(Locale.ROOT) : null;
+                if (field != null && FIELDS.contains(field)) {
+                    String value = word.substring(colon + 1);
+                    if (value.isEmpty() && end < s.length() && s.charAt(end) == '"') {
+                        int close = closingQuote(s, end);
+                        value = s.substring(end + 1, close);
+                        end = close + 1;
+                    }
+                    out.add(new Token(Kind.TERM, field, value));
+                } else if (word.equals("AND")) {
+                    out.add(new Token(Kind.AND, null, word));
+                } else if (word.equals("OR")) {
+                    out.add(new Token(Kind.OR, null, word));
+                } else if (word.equals("NOT")) {
+                    out.add(new Token(Kind.NEGATE, null, word));
+                } else {
+                    out.add(new Token(Kind.TERM, null, word));
+                }
+                i = end;
+            }
+        }
+        out.add(new Token(Kind.END, null, null));
+        return out;
+    }
+
+    private static int closingQuote(String s, int open) {
+        int close = s.indexOf('"', open + 1);
+        if (close < 0) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        return close;
+    }
+}
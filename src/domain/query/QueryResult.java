@@ -0,0 +1,38 @@
+package domain.query;
+
+import domain.media.MediaItem;
+
+import java.util.List;
+
+/**
+ * Items matched by a query-language expression, with the plan that found
+ * them.
+ *
+ * @param items matching items, ordered by title
+ * @param plan  steps executed, in order
+ */
+public record QueryResult(List<MediaItem> items, List<PlanStep> plan) {
+    /**
+     * Compact constructor that makes both lists immutable.
+     *
+     * @param items matching items
+     * @param plan  executed steps
+     */
+    public QueryResult {
+        items = List.copyOf(items);
+        plan = List.copyOf(plan);
+    }
+
+    /**
+     * Describes the executed plan, one numbered step per line.
+     *
+     * @return the explain output
+     */
+    public String explain() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < plan.size(); i++) {
+            out.append(i + 1).append(". ").append(plan.get(i)).append('\n');
+        }
+        return out.toString();
+    }
+}
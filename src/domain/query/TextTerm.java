@@ -0,0 +1,50 @@
+package domain.query;
+
+import domain.Query;
+import domain.media.MediaItem;
+
+/**
+ * Partial text match on the title, the creators, or either of them.
+ * Matching is delegated to an equivalent {@link Query}, so it is case- and
+ * accent-insensitive exactly like the simple catalog search.
+ *
+ * @param field "title", "creator" or "any"
+ * @param query the equivalent simple query
+ */
+public record TextTerm(String field, Query query) implements Expr {
+    /**
+     * Creates a text term.
+     *
+     * @param field "title", "creator" or "any"
+     * @param text  raw text to look for
+     * @return the term
+     */
+    public static TextTerm of(String field, String text) {
+        return switch (field) {
+            case "title" -> new TextTerm(field, Query.byTitle(text));
+            case "creator" -> new TextTerm(field, Query.byCreator(text));
+            case "any" -> new TextTerm(field, new Query(text, text, null));
+            default -> throw new IllegalArgumentException("Unknown text field: " + field);
+        };
+    }
+
+    /**
+     * Gets the normalized text this term looks for.
+     *
+     * @return the search text
+     */
+    public String text() {
+        return query.title() != null ? query.title() : query.creator();
+    }
+
+    @Override
+    public boolean test(MediaItem item) {
+        return item.matches(query);
+    }
+
+    @Override
+    public String toString() {
+        String value = text().indexOf(' ') >= 0 ? "\"" + text() + "\"" : text();
+        return field.equals("any") ? value : field + ":" + value;
+    }
+}
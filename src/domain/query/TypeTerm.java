@@ -0,0 +1,22 @@
+package domain.query;
+
+import domain.media.MediaItem;
+
+import java.util.Locale;
+
+/**
+ * Matches items of one media type.
+ *
+ * @param type the simple class name of the type (e.g. "Book")
+ */
+public record TypeTerm(String type) implements Expr {
+    @Override
+    public boolean test(MediaItem item) {
+        return item.getClass().getSimpleName().equals(type);
+    }
+
+    @Override
+    public String toString() {
+        return "type:" + type.toLowerCase(Locale.ROOT);
+    }
+}
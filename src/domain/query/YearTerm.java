@@ -0,0 +1,37 @@
+package domain.query;
+
+import domain.Query;
+import domain.media.MediaItem;
+
+/**
+ * Inclusive year range match.
+ *
+ * @param query the equivalent simple query (year bounds only)
+ */
+public record YearTerm(Query query) implements Expr {
+    /**
+     * Creates a year range term.
+     *
+     * @param from earliest year, or null for no lower bound
+     * @param to   latest year, or null for no upper bound
+     * @return the term
+     */
+    public static YearTerm of(Integer from, Integer to) {
+        return new YearTerm(Query.byYearRange(from, to));
+    }
+
+    @Override
+    public boolean test(MediaItem item) {
+        return query.matchesYear(item.getYear());
+    }
+
+    @Override
+    public String toString() {
+        Integer from = query.yearFrom();
+        Integer to = query.yearTo();
+        if (from != null && from.equals(to)) {
+            return "year:" + from;
+        }
+        return "year:" + (from == null ? "" : from) + ".." + (to == null ? "" : to);
+    }
+}
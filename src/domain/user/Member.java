@@ -4,13 +4,21 @@ import util.Validation;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Represents a library member who can borrow items.
  * Tracks loan limits, fines, and membership status.
+ * A member can be blocked by a librarian, or held automatically while a loan
+ * of theirs is overdue; the hold lifts itself once those loans are returned,
+ * and never lifts a librarian's block.
  */
 public final class Member extends User {
     private boolean blocked;
+    // Ids of overdue loans holding the member, null while there are none
+    private Set<UUID> overdueLoans;
     private BigDecimal outstandingFines;
     private LocalDate membershipExpiry;
     private final int maxConcurrentLoans;
@@ -48,26 +56,64 @@ public final class Member extends User {
     }
 
     /**
-     * Checks if the member is currently blocked from borrowing.
+     * Checks if the member is currently blocked from borrowing, either by a
+     * librarian or by an overdue loan.
      * 
      * @return true if blocked, false otherwise
      */
-    public boolean isBlocked() {
-        return blocked;
+    public synchronized boolean isBlocked() {
+        return blocked || overdueLoans != null;
     }
 
     /**
-     * Blocks the member from borrowing new items.
+     * Blocks the member from borrowing new items until a librarian unblocks
+     * them.
      */
-    public void block() {
+    public synchronized void block() {
         this.blocked = true;
     }
 
     /**
-     * Unblocks the member, allowing them to borrow again.
+     * Unblocks the member, allowing them to borrow again. Lifts any overdue
+     * holds as well.
      */
-    public void unblock() {
+    public synchronized void unblock() {
         this.blocked = false;
+        this.overdueLoans = null;
+    }
+
+    /**
+     * Holds the member from borrowing because one of their loans is overdue.
+     *
+     * @param loanId the overdue loan
+     */
+    public synchronized void holdForOverdue(UUID loanId) {
+        if (overdueLoans == null) {
+            overdueLoans = new HashSet<>();
+        }
+        overdueLoans.add(Validation.nonNull(loanId, "loanId"));
+    }
+
+    /**
+     * Lifts the hold placed for a loan, typically once it is returned. The
+     * member may borrow again when no other overdue loan holds them and no
+     * librarian has blocked them.
+     *
+     * @param loanId the loan no longer overdue
+     */
+    public synchronized void releaseOverdueHold(UUID loanId) {
+        if (overdueLoans != null && overdueLoans.remove(loanId) && overdueLoans.isEmpty()) {
+            overdueLoans = null;
+        }
+    }
+
+    /**
+     * Checks if an overdue loan currently holds the member.
+     *
+     * @return true if held for an overdue loan
+     */
+    public synchronized boolean isOnOverdueHold() {
+        return overdueLoans != null;
     }
 
     /**
@@ -4,6 +4,7 @@ import domain.inventory.Holding;
 import domain.user.Member;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Strategy interface for determining if a member can borrow an item
@@ -19,6 +20,19 @@ public interface LoanRule {
      */
     boolean canLoan(Member member, Holding holding);
 
+    /**
+     * Checks if a member is eligible to borrow a batch of holdings together.
+     * The default checks each holding on its own; rules that enforce a loan
+     * limit must override it to count the whole batch against the limit.
+     *
+     * @param member   the member attempting to borrow
+     * @param holdings the items to be borrowed together
+     * @return true if every item may be lent, false otherwise
+     */
+    default boolean canLoanAll(Member member, List<Holding> holdings) {
+        return holdings.stream().allMatch(h -> canLoan(member, h));
+    }
+
     /**
      * Calculates the due date for a loan starting 'now'.
      *
@@ -8,6 +8,7 @@ import repo.LoanRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -31,6 +32,11 @@ public class StandardLoanRule implements LoanRule {
 
     @Override
     public boolean canLoan(Member member, Holding holding) {
+        return canLoanAll(member, List.of(holding));
+    }
+
+    @Override
+    public boolean canLoanAll(Member member, List<Holding> holdings) {
         // 1. Basic Member Checks
         if (member.isBlocked() || member.isExpired()) {
             return false;
@@ -42,14 +48,16 @@ public class StandardLoanRule implements LoanRule {
         }
 
         // 3. Item Availability
-        if (holding.getStatus() != HoldingStatus.AVAILABLE) {
-            return false;
+        for (Holding holding : holdings) {
+            if (holding.getStatus() != HoldingStatus.AVAILABLE) {
+                return false;
+            }
         }
 
         // 4. Global Limit Check (Member's personal limit)
-        // This rule treats all items equally, so we only care about the total count.
-        int activeLoans = loanRepo.findActiveByMemberId(member.getId()).size();
-        return activeLoans < member.getMaxConcurrentLoans();
+        // This rule treats all items equally, so the whole batch must fit under the limit.
+        int activeLoans = loanRepo.countActiveByMemberId(member.getId());
+        return activeLoans + holdings.size() <= member.getMaxConcurrentLoans();
     }
 
     @Override
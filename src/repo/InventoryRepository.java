@@ -1,8 +1,11 @@
 package repo;
 
 import domain.inventory.Holding;
+import domain.inventory.HoldingStatus;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,6 +18,7 @@ public interface InventoryRepository {
      * 
      * @param h the holding to save
      * @return the saved holding
+     * @throws IllegalArgumentException if another holding has the same barcode
      */
     Holding save(Holding h);
 
@@ -26,6 +30,14 @@ public interface InventoryRepository {
      */
     Optional<Holding> findById(UUID id);
 
+    /**
+     * Finds a holding by its copy barcode through a hash index.
+     * 
+     * @param barcode the scanned barcode (case and surrounding spaces ignored)
+     * @return an Optional containing the holding if found
+     */
+    Optional<Holding> findByBarcode(String barcode);
+
     /**
      * Finds all holdings associated with a specific media title.
      * 
@@ -33,4 +45,33 @@ public interface InventoryRepository {
      * @return list of holdings
      */
     List<Holding> findByMediaId(UUID mediaId);
+
+    /**
+     * Finds any one holding of a media title in the given status.
+     * 
+     * @param mediaId the media item UUID
+     * @param status  the wanted status
+     * @return an Optional containing a matching holding, if any
+     */
+    Optional<Holding> findFirstByStatus(UUID mediaId, HoldingStatus status);
+
+    /**
+     * Counts the holdings of a media title in the given status.
+     * Backed by counters maintained on every holding transition, so this is a
+     * constant-time read.
+     * 
+     * @param mediaId the media item UUID
+     * @param status  the status to count
+     * @return number of holdings in that status
+     */
+    int countByStatus(UUID mediaId, HoldingStatus status);
+
+    /**
+     * Counts the AVAILABLE holdings of several media titles in one call,
+     * without building holding lists.
+     * 
+     * @param mediaIds the media item UUIDs
+     * @return map from each requested media id to its available count
+     */
+    Map<UUID, Integer> availableCounts(Collection<UUID> mediaIds);
 }
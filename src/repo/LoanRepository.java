@@ -1,7 +1,9 @@
 package repo;
 
 import domain.loan.Loan;
+import domain.loan.LoanRecord;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -9,37 +11,100 @@ import java.util.UUID;
 
 /**
  * Interface for managing Loan transactions.
+ * Only active loans are kept as Loan objects; once returned, a loan moves to
+ * a compact history of LoanRecords.
  */
 public interface LoanRepository {
     /**
      * Saves a new loan or updates an existing one.
+     * Returned loans are rejected; they leave through archive, which records
+     * the fine charged.
      * 
      * @param loan the loan to save
      * @return the saved loan
+     * @throws IllegalArgumentException if the loan is already returned
      */
     Loan save(Loan loan);
 
     /**
-     * Finds a loan by its unique ID.
+     * Saves a batch of new loans in one step.
+     * The whole batch is validated before any loan is stored, so either every
+     * loan is saved or none is.
+     * 
+     * @param loans the loans to save
+     * @return the saved loans, in the given order
+     * @throws IllegalArgumentException if any loan is null or already returned
+     */
+    List<Loan> saveAll(List<Loan> loans);
+
+    /**
+     * Moves a returned loan out of the active loans into the history.
+     * It leaves its member's active loans and the due-date index.
+     * 
+     * @param loan the returned loan
+     * @param fine the fine charged on return
+     */
+    void archive(Loan loan, BigDecimal fine);
+
+    /**
+     * Finds an active loan by its unique ID.
      * 
      * @param id the loan UUID
-     * @return an Optional containing the loan if found
+     * @return an Optional containing the loan if it is still active
      */
     Optional<Loan> findById(UUID id);
 
+    /**
+     * Finds the history record of a returned loan.
+     * 
+     * @param loanId the loan UUID
+     * @return an Optional containing the record if the loan was returned
+     */
+    Optional<LoanRecord> findRecord(UUID loanId);
+
+    /**
+     * Finds the returned loans of a member, in the order they came back.
+     * 
+     * @param memberId the member UUID
+     * @return list of history records
+     */
+    List<LoanRecord> findHistoryByMemberId(UUID memberId);
+
     /**
      * Finds all active (unreturned) loans for a specific member.
+     * Backed by an index of active loans per member, so the cost depends on
+     * the loans the member holds, not on all loans ever recorded.
      * 
      * @param memberId the member UUID
      * @return list of active loans
      */
     List<Loan> findActiveByMemberId(UUID memberId);
 
+    /**
+     * Counts the active (unreturned) loans of a member without building a list.
+     * 
+     * @param memberId the member UUID
+     * @return number of active loans
+     */
+    int countActiveByMemberId(UUID memberId);
+
     /**
      * Finds all loans that are currently unreturned and past their due date.
+     * Active loans are indexed by due date, so the cost depends on the number
+     * of overdue loans rather than on all loans ever recorded.
      * 
      * @param today the reference date for determining overdue status
-     * @return list of overdue loans
+     * @return list of overdue loans, earliest due first
      */
     List<Loan> findOverdue(LocalDate today);
+
+    /**
+     * Finds the active (unreturned) loans due within a date range.
+     * Answered from the due-date index without scanning other loans.
+     * 
+     * @param from first due date to include
+     * @param to   last due date to include
+     * @return list of matching loans, earliest due first
+     */
+    List<Loan> findDueBetween(LocalDate from, LocalDate to);
 }
@@ -1,10 +1,15 @@
 package repo;
 
+import domain.Query;
+import domain.media.Book;
 import domain.media.MediaItem;
+import domain.query.Expr;
+import domain.query.QueryResult;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Interface for accessing the catalog of media titles.
@@ -32,4 +37,88 @@ public interface MediaRepository {
      * @return list of all items
      */
     List<MediaItem> findAll();
+
+    /**
+     * Streams all media items lazily, without copying the store.
+     * Intended for read-only traversals; consume the stream before saving.
+     * 
+     * @return a lazy stream of all items
+     */
+    Stream<MediaItem> stream();
+
+    /**
+     * Streams the media items matching a query lazily.
+     * The query is pushed down to the indexes, so only candidates are visited,
+     * and short-circuiting operations such as findFirst or limit stop the
+     * traversal early.
+     * 
+     * @param q the search criteria (null matches everything)
+     * @return a lazy stream of matching items
+     */
+    Stream<MediaItem> stream(Query q);
+
+    /**
+     * Finds a book by ISBN through a hash index.
+     * ISBN-10 and ISBN-13 forms of the same book are equivalent, and hyphens
+     * and spaces are ignored.
+     * 
+     * @param isbn the scanned or typed ISBN
+     * @return an Optional containing the book if found
+     */
+    Optional<Book> findByIsbn(String isbn);
+
+    /**
+     * Gets the catalog version, which changes on every save.
+     * Lets callers detect that anything derived from the catalog is outdated.
+     * 
+     * @return the current version number
+     */
+    long version();
+
+    /**
+     * Finds all media items matching a search query.
+     * A null query, or one without criteria, returns every item.
+     *
+     * @param q the search criteria
+     * @return list of matching items
+     */
+    List<MediaItem> search(Query q);
+
+    /**
+     * Finds the most relevant media items matching a search query.
+     *
+     * @param q the search criteria
+     * @param k maximum number of results
+     * @return up to k matching items, most relevant first
+     */
+    List<MediaItem> searchRanked(Query q, int k);
+
+    /**
+     * Finds media items whose title or creators match the query's words
+     * within a number of edits, tolerating typos.
+     * A query without text falls back to the exact search.
+     *
+     * @param q        the search criteria
+     * @param maxEdits maximum edits per query word
+     * @return matching items, closest first
+     */
+    List<MediaItem> searchFuzzy(Query q, int maxEdits);
+
+    /**
+     * Runs a parsed query-language expression, choosing the most selective
+     * indexed predicate to start from.
+     *
+     * @param expr the parsed expression
+     * @return matching items with the executed plan
+     */
+    QueryResult query(Expr expr);
+
+    /**
+     * Suggests titles and creator names starting with a prefix.
+     *
+     * @param prefix normalized prefix
+     * @param limit  maximum number of suggestions
+     * @return list of completions
+     */
+    List<String> suggest(String prefix, int limit);
 }
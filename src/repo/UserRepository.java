@@ -5,6 +5,7 @@ import domain.user.User;
 import java.util.UUID;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface for managing user accounts (Members and Librarians).
@@ -56,4 +57,24 @@ public interface UserRepository {
      * @return list of all users
      */
     List<User> findAll();
+
+    /**
+     * Streams all users lazily, without copying the store.
+     * Intended for read-only traversals; consume the stream before saving or
+     * deleting users.
+     * 
+     * @return a lazy stream of all users
+     */
+    Stream<User> stream();
+
+    /**
+     * Streams the users of one type (e.g. Member) lazily.
+     * 
+     * @param type the user class to keep
+     * @param <T>  the user type
+     * @return a lazy stream of users of that type
+     */
+    default <T extends User> Stream<T> stream(Class<T> type) {
+        return stream().filter(type::isInstance).map(type::cast);
+    }
 }
@@ -0,0 +1,174 @@
+package repo.archive;
+
+import domain.loan.Loan;
+import domain.loan.LoanRecord;
+import util.Validation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Append-only columnar history of returned loans.
+ * Each column is a primitive array: loan ids as two longs, member and holding
+ * ids as int surrogates, dates as epoch days and fines in cents. Archived
+ * loans therefore keep no Loan, Holding or Member object alive, and history
+ * queries are tight scans over one or two arrays. Lookups by loan id go
+ * through an open-addressing table of row numbers hashed on the id columns,
+ * so they take constant time without boxing a key per row. Rows are decoded
+ * into LoanRecords only for the matches.
+ * Not thread-safe; callers that share an archive must guard it.
+ */
+public final class LoanArchive {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] idHigh = new long[INITIAL_CAPACITY];
+    private long[] idLow = new long[INITIAL_CAPACITY];
+    private int[] holdings = new int[INITIAL_CAPACITY];
+    private int[] members = new int[INITIAL_CAPACITY];
+    private int[] loanedOn = new int[INITIAL_CAPACITY];
+    private int[] dueOn = new int[INITIAL_CAPACITY];
+    private int[] returnedOn = new int[INITIAL_CAPACITY];
+    private long[] fineCents = new long[INITIAL_CAPACITY];
+    // Loan id hash table: each slot holds row + 1, or 0 when empty; kept at
+    // most half full so probe runs stay short
+    private int[] rowsById = new int[INITIAL_CAPACITY * 2];
+    private final Surrogates holdingIds = new Surrogates();
+    private final Surrogates memberIds = new Surrogates();
+    private int size;
+
+    /**
+     * Appends a returned loan.
+     *
+     * @param loan the returned loan
+     * @param fine the fine charged on return
+     */
+    public void append(Loan loan, BigDecimal fine) {
+        Validation.require(loan.isReturned(), "Only returned loans can be archived");
+        if (size == idHigh.length) {
+            grow();
+        }
+        int row = size;
+        idHigh[row] = loan.getId().getMostSignificantBits();
+        idLow[row] = loan.getId().getLeastSignificantBits();
+        holdings[row] = holdingIds.of(loan.getHolding().getId());
+        members[row] = memberIds.of(loan.getBorrower().getId());
+        loanedOn[row] = (int) loan.getLoanedOn().toEpochDay();
+        dueOn[row] = (int) loan.getDueOn().toEpochDay();
+        returnedOn[row] = (int) loan.getReturnedOn().toEpochDay();
+        fineCents[row] = fine.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        size++;
+        if (size * 2 > rowsById.length) {
+            rowsById = new int[rowsById.length * 2];
+            for (int r = 0; r < size; r++) {
+                insertRow(r);
+            }
+        } else {
+            insertRow(row);
+        }
+    }
+
+    /**
+     * Finds the history row of a loan.
+     *
+     * @param loanId the loan id
+     * @return the record, or empty if the loan is not archived
+     */
+    public Optional<LoanRecord> find(UUID loanId) {
+        long high = loanId.getMostSignificantBits();
+        long low = loanId.getLeastSignificantBits();
+        int mask = rowsById.length - 1;
+        for (int i = slotOf(high, low, mask); rowsById[i] != 0; i = (i + 1) & mask) {
+            int row = rowsById[i] - 1;
+            if (idLow[row] == low && idHigh[row] == high) {
+                return Optional.of(record(row));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Lists the archived loans of a member in the order they were returned.
+     *
+     * @param memberId the member id
+     * @return the member's records (empty if none)
+     */
+    public List<LoanRecord> byMember(UUID memberId) {
+        List<LoanRecord> out = new ArrayList<>();
+        Integer member = memberIds.find(memberId);
+        if (member == null) {
+            return out;
+        }
+        int key = member;
+        for (int row = 0; row < size; row++) {
+            if (members[row] == key) {
+                out.add(record(row));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Gets the number of archived loans.
+     *
+     * @return row count
+     */
+    public int size() {
+        return size;
+    }
+
+    private void insertRow(int row) {
+        int mask = rowsById.length - 1;
+        int i = slotOf(idHigh[row], idLow[row], mask);
+        while (rowsById[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        rowsById[i] = row + 1;
+    }
+
+    private static int slotOf(long high, long low, int mask) {
+        long h = high ^ low;
+        int x = (int) (h ^ (h >>> 32));
+        return (x ^ (x >>> 16)) & mask;
+    }
+
+    private LoanRecord record(int row) {
+        return new LoanRecord(new UUID(idHigh[row], idLow[row]), holdingIds.get(holdings[row]),
+                memberIds.get(members[row]), LocalDate.ofEpochDay(loanedOn[row]), LocalDate.ofEpochDay(dueOn[row]),
+                LocalDate.ofEpochDay(returnedOn[row]), fineCents[row]);
+    }
+
+    private void grow() {
+        int capacity = idHigh.length * 2;
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        holdings = Arrays.copyOf(holdings, capacity);
+        members = Arrays.copyOf(members, capacity);
+        loanedOn = Arrays.copyOf(loanedOn, capacity);
+        dueOn = Arrays.copyOf(dueOn, capacity);
+        returnedOn = Arrays.copyOf(returnedOn, capacity);
+        fineCents = Arrays.copyOf(fineCents, capacity);
+    }
+
+    // Dictionary assigning dense int ids to UUIDs, so each UUID is kept once
+    private static final class Surrogates {
+        private final Map<UUID, Integer> ids = new HashMap<>();
+        private final List<UUID> values = new ArrayList<>();
+
+        int of(UUID value) {
+            return ids.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        Integer find(UUID value) {
+            return ids.get(value);
+        }
+
+        UUID get(int id) {
+            return values.get(id);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package repo.concurrent;
+
+import domain.inventory.Holding;
+import domain.inventory.HoldingStatus;
+import repo.InventoryRepository;
+import util.Validation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe implementation of InventoryRepository.
+ * Holdings, the per-title copy lists and the barcode index are concurrent
+ * structures read without locking. Copy lists are copy-on-write, since copies
+ * are added rarely and listed often. Saves of new copies are serialized, so a
+ * barcode is claimed and the copy is registered with its title in one step;
+ * re-saving a registered copy, as every checkout and return does, is
+ * lock-free.
+ */
+public final class ConcurrentInventoryRepository implements InventoryRepository {
+    private static final int STATUSES = HoldingStatus.values().length;
+
+    private final Map<UUID, Holding> store = new ConcurrentHashMap<>();
+    private final Map<UUID, List<UUID>> byMedia = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byBarcode = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicIntegerArray> statusCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public Holding save(Holding h) {
+        if (store.get(h.getId()) == h) {
+            // Already registered: its status changes reach the counters through
+            // the listener, so re-saving on checkout or return takes no lock
+            return h;
+        }
+        return register(h);
+    }
+
+    // Adds a new (or replacement) holding to the store and its indexes
+    private synchronized Holding register(Holding h) {
+        String barcode = h.getBarcode();
+        if (barcode != null) {
+            UUID owner = byBarcode.putIfAbsent(barcode, h.getId());
+            Validation.require(owner == null || owner.equals(h.getId()), "Barcode already in use: " + barcode);
+        }
+        if (!store.containsKey(h.getId())) {
+            // First save: start tracking the copy before it becomes visible
+            UUID mediaId = h.getItem().getId();
+            AtomicIntegerArray counts = statusCounts.computeIfAbsent(mediaId, k -> new AtomicIntegerArray(STATUSES));
+            counts.incrementAndGet(h.getStatus().ordinal());
+            h.setListener(this::onStatusChange);
+            byMedia.computeIfAbsent(mediaId, k -> new CopyOnWriteArrayList<>()).add(h.getId());
+        }
+        store.put(h.getId(), h);
+        return h;
+    }
+
+    @Override
+    public Optional<Holding> findById(UUID id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public Optional<Holding> findByBarcode(String barcode) {
+        String key = Holding.normalizeBarcode(barcode);
+        UUID id = key == null ? null : byBarcode.get(key);
+        return id == null ? Optional.empty() : Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public List<Holding> findByMediaId(UUID mediaId) {
+        List<UUID> ids = byMedia.getOrDefault(mediaId, List.of());
+        return ids.stream().map(store::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Holding> findFirstByStatus(UUID mediaId, HoldingStatus status) {
+        // No shortcut on a zero counter: it is updated just after the status
+        // flips, so for a moment it can miss a copy that is already visible
+        for (UUID id : byMedia.getOrDefault(mediaId, List.of())) {
+            Holding h = store.get(id);
+            if (h != null && h.getStatus() == status) {
+                return Optional.of(h);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int countByStatus(UUID mediaId, HoldingStatus status) {
+        AtomicIntegerArray counts = statusCounts.get(mediaId);
+        return counts == null ? 0 : counts.get(status.ordinal());
+    }
+
+    @Override
+    public Map<UUID, Integer> availableCounts(Collection<UUID> mediaIds) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (UUID mediaId : mediaIds) {
+            counts.put(mediaId, countByStatus(mediaId, HoldingStatus.AVAILABLE));
+        }
+        return counts;
+    }
+
+    private void onStatusChange(Holding h, HoldingStatus from, HoldingStatus to) {
+        AtomicIntegerArray counts = statusCounts.get(h.getItem().getId());
+        counts.incrementAndGet(to.ordinal());
+        counts.decrementAndGet(from.ordinal());
+    }
+}
@@ -0,0 +1,170 @@
+package repo.concurrent;
+
+import domain.loan.Loan;
+import domain.loan.LoanRecord;
+import repo.LoanRepository;
+import repo.archive.LoanArchive;
+import util.Validation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe implementation of LoanRepository.
+ * Stores loans in a ConcurrentHashMap; queries traverse a weakly consistent
+ * view, so they never block writers or see a corrupted map.
+ * Active loans per member and per due date are kept in concurrent sets. The
+ * member sets are updated atomically per key through compute; the due-date
+ * index is a skip list, so overdue and due-soon queries read a sorted range
+ * without locking, and its buckets are only ever added, never removed.
+ * Returned loans move to a columnar LoanArchive guarded by a read-write lock;
+ * a loan is appended to the archive before it leaves the active store, so a
+ * lookup always finds it in one or the other.
+ */
+public final class ConcurrentLoanRepository implements LoanRepository {
+    private final Map<UUID, Loan> store = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> activeByMember = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<LocalDate, Set<UUID>> activeByDue = new ConcurrentSkipListMap<>();
+    private final LoanArchive archive = new LoanArchive();
+    private final ReadWriteLock archiveLock = new ReentrantReadWriteLock();
+
+    @Override
+    public Loan save(Loan loan) {
+        validate(loan);
+        publish(loan);
+        return loan;
+    }
+
+    @Override
+    public List<Loan> saveAll(List<Loan> loans) {
+        // Validate the whole batch first; publishing cannot fail afterwards
+        loans.forEach(this::validate);
+        loans.forEach(this::publish);
+        return loans;
+    }
+
+    private void validate(Loan loan) {
+        Validation.nonNull(loan, "loan");
+        // Only the return path knows the fine, so it archives through archive()
+        Validation.require(!loan.isReturned(), "Returned loans must be archived with their fine");
+    }
+
+    private void publish(Loan loan) {
+        store.put(loan.getId(), loan);
+        index(activeByMember, loan.getBorrower().getId(), loan.getId());
+        activeByDue.computeIfAbsent(loan.getDueOn(), k -> ConcurrentHashMap.newKeySet()).add(loan.getId());
+    }
+
+    @Override
+    public void archive(Loan loan, BigDecimal fine) {
+        Lock w = archiveLock.writeLock();
+        w.lock();
+        try {
+            Validation.require(store.containsKey(loan.getId()), "Loan is not active: " + loan.getId());
+            archive.append(loan, fine);
+            store.remove(loan.getId());
+        } finally {
+            w.unlock();
+        }
+        unindex(activeByMember, loan.getBorrower().getId(), loan.getId());
+        // Due-date buckets are never removed: compute on a skip list is not
+        // atomic, so dropping an empty bucket could take a concurrently added
+        // id with it. Empty buckets cost one small set per calendar day
+        Set<UUID> due = activeByDue.get(loan.getDueOn());
+        if (due != null) {
+            due.remove(loan.getId());
+        }
+    }
+
+    @Override
+    public Optional<Loan> findById(UUID id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public Optional<LoanRecord> findRecord(UUID loanId) {
+        return read(() -> archive.find(loanId));
+    }
+
+    @Override
+    public List<LoanRecord> findHistoryByMemberId(UUID memberId) {
+        return read(() -> archive.byMember(memberId));
+    }
+
+    @Override
+    public List<Loan> findActiveByMemberId(UUID memberId) {
+        return active(memberId).collect(Collectors.toList());
+    }
+
+    @Override
+    public int countActiveByMemberId(UUID memberId) {
+        // Counts what findActiveByMemberId lists, even if a loan was marked
+        // returned without being archived
+        return (int) active(memberId).count();
+    }
+
+    private Stream<Loan> active(UUID memberId) {
+        return activeByMember.getOrDefault(memberId, Set.of()).stream()
+                .map(store::get)
+                .filter(l -> l != null && !l.isReturned());
+    }
+
+    @Override
+    public List<Loan> findOverdue(LocalDate today) {
+        return due(activeByDue.headMap(today, false));
+    }
+
+    @Override
+    public List<Loan> findDueBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return due(activeByDue.subMap(from, true, to, true));
+    }
+
+    // Flattens a range of the due-date index into loans, earliest due first
+    private List<Loan> due(Map<LocalDate, Set<UUID>> range) {
+        return range.values().stream()
+                .flatMap(Set::stream)
+                .map(store::get)
+                .filter(l -> l != null && !l.isReturned())
+                .collect(Collectors.toList());
+    }
+
+    // Atomic per key on a ConcurrentHashMap only; not for the skip list
+    private static <K> void index(Map<K, Set<UUID>> index, K key, UUID id) {
+        index.compute(key, (k, ids) -> {
+            Set<UUID> set = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            set.add(id);
+            return set;
+        });
+    }
+
+    private static <K> void unindex(Map<K, Set<UUID>> index, K key, UUID id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Runs an archive read under the shared lock
+    private <T> T read(Supplier<T> action) {
+        Lock r = archiveLock.readLock();
+        r.lock();
+        try {
+            return action.get();
+        } finally {
+            r.unlock();
+        }
+    }
+}
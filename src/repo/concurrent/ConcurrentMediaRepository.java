@@ -0,0 +1,159 @@
+package repo.concurrent;
+
+import domain.Query;
+import domain.media.Book;
+import domain.media.MediaItem;
+import domain.query.Expr;
+import domain.query.QueryResult;
+import repo.MediaRepository;
+import repo.index.CatalogIndex;
+import repo.index.QueryPlanner;
+import util.Validation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe implementation of MediaRepository.
+ * Items live in a ConcurrentHashMap, so lookups by id never lock. The
+ * CatalogIndex is guarded by a read-write lock: any number of searches run
+ * at the same time, and a save updates the store and every index under the
+ * write lock, so searches never see an index out of step with the store.
+ * Queries the indexes cannot narrow fall back to a scan of the store, which
+ * runs as a parallel stream once the catalog reaches a size threshold.
+ */
+public final class ConcurrentMediaRepository implements MediaRepository {
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 32_768;
+
+    private final Map<UUID, MediaItem> store = new ConcurrentHashMap<>();
+    private final CatalogIndex index = new CatalogIndex();
+    private final QueryPlanner planner = new QueryPlanner(index);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int parallelThreshold;
+    private volatile long version;
+
+    /**
+     * Creates a repository with the default parallel scan threshold.
+     */
+    public ConcurrentMediaRepository() {
+        this(DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a repository with a specific parallel scan threshold.
+     *
+     * @param parallelThreshold catalog size from which scans run in parallel
+     */
+    public ConcurrentMediaRepository(int parallelThreshold) {
+        Validation.require(parallelThreshold >= 0, "parallelThreshold must be >= 0");
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @Override
+    public MediaItem save(MediaItem item) {
+        Lock w = lock.writeLock();
+        w.lock();
+        try {
+            store.put(item.getId(), item);
+            index.add(item);
+            version++;
+        } finally {
+            w.unlock();
+        }
+        return item;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public Optional<MediaItem> findById(UUID id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        UUID id = read(() -> index.findByIsbn(isbn));
+        return id == null ? Optional.empty() : Optional.ofNullable((Book) store.get(id));
+    }
+
+    @Override
+    public List<MediaItem> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public Stream<MediaItem> stream() {
+        return store.values().stream();
+    }
+
+    @Override
+    public Stream<MediaItem> stream(Query q) {
+        // Candidate sets are fresh copies, so they can be streamed after unlocking
+        Set<UUID> ids = read(() -> index.candidates(q));
+        Stream<MediaItem> source = ids == null ? scan() : ids.stream().map(store::get);
+        return source.filter(m -> m != null && m.matches(q));
+    }
+
+    @Override
+    public List<MediaItem> search(Query q) {
+        return stream(q).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<MediaItem> searchRanked(Query q, int k) {
+        List<MediaItem> hits = search(q);
+        return read(() -> index.rank(q, hits, k));
+    }
+
+    @Override
+    public List<MediaItem> searchFuzzy(Query q, int maxEdits) {
+        if (q == null || !q.hasText()) {
+            return search(q);
+        }
+        Map<UUID, Integer> edits = read(() -> index.fuzzy(q, maxEdits));
+        return edits.keySet().stream()
+                .map(store::get)
+                .filter(m -> m != null && q.matchesYear(m.getYear()))
+                .sorted(Comparator.comparingInt((MediaItem m) -> edits.get(m.getId()))
+                        .thenComparing(MediaItem::getTitleKey)
+                        .thenComparing(MediaItem::getId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public QueryResult query(Expr expr) {
+        return read(() -> planner.execute(expr, store::get,
+                p -> scan().filter(p).collect(Collectors.toList())));
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return read(() -> index.suggest(prefix, limit));
+    }
+
+    // Streams the whole store, in parallel once it is large enough to pay off
+    private Stream<MediaItem> scan() {
+        Collection<MediaItem> all = store.values();
+        return all.size() >= parallelThreshold ? all.parallelStream() : all.stream();
+    }
+
+    // Runs an index read under the shared lock
+    private <T> T read(Supplier<T> action) {
+        Lock r = lock.readLock();
+        r.lock();
+        try {
+            return action.get();
+        } finally {
+            r.unlock();
+        }
+    }
+}
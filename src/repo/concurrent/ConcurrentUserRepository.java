@@ -0,0 +1,75 @@
+package repo.concurrent;
+
+import domain.user.User;
+import repo.UserRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe implementation of UserRepository.
+ * Reads go straight to ConcurrentHashMaps without locking; writes are
+ * serialized so the email index always follows the primary store.
+ */
+public final class ConcurrentUserRepository implements UserRepository {
+    private final Map<UUID, User> store = new ConcurrentHashMap<>();
+    private final Map<String, UUID> byEmail = new ConcurrentHashMap<>();
+    private final Map<UUID, String> emailById = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized User save(User user) {
+        String email = key(user.getEmail());
+        store.put(user.getId(), user);
+        // Drop the old address if the email changed since the last save
+        String old = emailById.put(user.getId(), email);
+        if (old != null && !old.equals(email)) {
+            byEmail.remove(old, user.getId());
+        }
+        byEmail.put(email, user.getId());
+        return user;
+    }
+
+    @Override
+    public synchronized void delete(User user) {
+        String email = emailById.remove(user.getId());
+        if (email != null) {
+            byEmail.remove(email, user.getId());
+        }
+        store.remove(user.getId());
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return byEmail.containsKey(key(email));
+    }
+
+    @Override
+    public Optional<User> existsByEmailAndPassword(String email, String password) {
+        UUID id = byEmail.get(key(email));
+        if (id == null) {
+            return Optional.empty();
+        }
+        User user = store.get(id);
+        return Optional.ofNullable(user).filter(u -> Objects.equals(u.getPassword(), password));
+    }
+
+    @Override
+    public Optional<User> findById(UUID id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public Stream<User> stream() {
+        return store.values().stream();
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,122 @@
+package repo.index;
+
+import java.util.*;
+
+/**
+ * BK-tree over a dictionary of terms, keyed by Levenshtein distance.
+ * Every child edge is labelled with its distance to the parent, so by the
+ * triangle inequality a lookup within n edits only descends into edges
+ * labelled d-n..d+n and skips the rest of the dictionary.
+ * Terms are never removed; callers check that a returned term is still in use.
+ */
+public final class BkTree {
+    private Node root;
+    private int size;
+
+    private static final class Node {
+        final String term;
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+
+    /**
+     * Adds a term to the dictionary (no-op if already present).
+     *
+     * @param term normalized term
+     */
+    public void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(term, node.term);
+            if (d == 0) {
+                return;
+            }
+            Node child = node.children.get(d);
+            if (child == null) {
+                node.children.put(d, new Node(term));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds all terms within a number of edits of the given term.
+     *
+     * @param term     normalized term
+     * @param maxEdits maximum Levenshtein distance
+     * @return map from each close term to its distance
+     */
+    public Map<String, Integer> search(String term, int maxEdits) {
+        Map<String, Integer> found = new HashMap<>();
+        if (root == null) {
+            return found;
+        }
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int d = distance(term, node.term);
+            if (d <= maxEdits) {
+                found.put(node.term, d);
+            }
+            for (Map.Entry<Integer, Node> e : node.children.entrySet()) {
+                if (Math.abs(e.getKey() - d) <= maxEdits) {
+                    stack.push(e.getValue());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the number of distinct terms in the dictionary.
+     *
+     * @return term count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Computes the Levenshtein distance (insertions, deletions and
+     * substitutions) between two strings using two rolling rows.
+     *
+     * @param a first string
+     * @param b second string
+     * @return the edit distance
+     */
+    public static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String t = a;
+            a = b;
+            b = t;
+        }
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()];
+    }
+}
@@ -0,0 +1,334 @@
+package repo.index;
+
+import domain.Category;
+import domain.Query;
+import domain.media.Book;
+import domain.media.MediaItem;
+import domain.query.*;
+import util.Isbn;
+import util.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Secondary indexes over the media catalog.
+ * Kept up to date by the media repository on every save and used to resolve
+ * a query to a small candidate set instead of scanning every title.
+ */
+public final class CatalogIndex {
+    private final TrigramIndex titleGrams = new TrigramIndex();
+    private final TrigramIndex creatorGrams = new TrigramIndex();
+    private final TokenIndex titleTerms = new TokenIndex();
+    private final TokenIndex creatorTerms = new TokenIndex();
+    private final PrefixIndex phrases = new PrefixIndex();
+    private final YearIndex years = new YearIndex();
+    private final BkTree dictionary = new BkTree();
+    private final KeyIndex<Category> categories = new KeyIndex<>();
+    private final KeyIndex<String> types = new KeyIndex<>();
+    private final Map<String, UUID> isbns = new HashMap<>();
+    private final Map<UUID, String> isbnById = new HashMap<>();
+    private final RelevanceRanker ranker = new RelevanceRanker(titleTerms, creatorTerms);
+
+    /**
+     * Adds an item to the indexes, replacing any previous entries for its id.
+     *
+     * @param item the saved media item
+     */
+    public void add(MediaItem item) {
+        List<String> title = List.of(item.getTitle());
+        titleGrams.index(item.getId(), title);
+        titleTerms.index(item.getId(), title);
+        creatorGrams.index(item.getId(), item.getCreators());
+        creatorTerms.index(item.getId(), item.getCreators());
+
+        List<String> all = new ArrayList<>(item.getCreators());
+        all.add(item.getTitle());
+        phrases.index(item.getId(), all);
+        years.index(item.getId(), item.getYear());
+        categories.index(item.getId(), item.getCategories());
+        types.index(item.getId(), List.of(item.getClass().getSimpleName()));
+        indexIsbn(item);
+        for (String text : all) {
+            for (String term : TextNormalizer.tokenize(text)) {
+                dictionary.add(term);
+            }
+        }
+    }
+
+    /**
+     * Finds the book with an ISBN in constant time.
+     *
+     * @param isbn ISBN-10 or ISBN-13, with or without hyphens
+     * @return the book's id, or null if no book has that ISBN
+     */
+    public UUID findByIsbn(String isbn) {
+        String key = Isbn.normalize(isbn);
+        return key == null ? null : isbns.get(key);
+    }
+
+    private void indexIsbn(MediaItem item) {
+        String old = isbnById.remove(item.getId());
+        if (old != null) {
+            isbns.remove(old, item.getId());
+        }
+        String key = item instanceof Book b ? Isbn.normalize(b.getIsbn()) : null;
+        if (key != null) {
+            isbns.put(key, item.getId());
+            isbnById.put(item.getId(), key);
+        }
+    }
+
+    /**
+     * Completes a prefix against all titles and creator names.
+     *
+     * @param prefix normalized prefix
+     * @param limit  maximum number of completions
+     * @return matching titles and creator names in alphabetical order
+     */
+    public List<String> suggest(String prefix, int limit) {
+        return phrases.complete(prefix, limit);
+    }
+
+    /**
+     * Selects the most relevant of a query's hits.
+     *
+     * @param q    the query the hits matched
+     * @param hits verified matches
+     * @param k    maximum number of results
+     * @return up to k items, most relevant first
+     */
+    public List<MediaItem> rank(Query q, Collection<MediaItem> hits, int k) {
+        return ranker.topK(q, hits, k);
+    }
+
+    /**
+     * Finds items whose title or creators contain every query word within a
+     * few edits, looking the words up in the BK-tree term dictionary instead
+     * of comparing against every title.
+     * Short words tolerate fewer edits: none up to 3 letters, one up to 5.
+     * The year range is not applied here.
+     *
+     * @param q        the search query (text criteria only)
+     * @param maxEdits maximum edits per word
+     * @return map from matching item id to its total number of edits
+     */
+    public Map<UUID, Integer> fuzzy(Query q, int maxEdits) {
+        Map<UUID, Integer> hits = new HashMap<>();
+        if (q == null) {
+            return hits;
+        }
+        if (q.title() != null) {
+            fuzzyField(q.title(), titleTerms, maxEdits).forEach((id, d) -> hits.merge(id, d, Math::min));
+        }
+        if (q.creator() != null) {
+            fuzzyField(q.creator(), creatorTerms, maxEdits).forEach((id, d) -> hits.merge(id, d, Math::min));
+        }
+        return hits;
+    }
+
+    private Map<UUID, Integer> fuzzyField(String text, TokenIndex terms, int maxEdits) {
+        Map<UUID, Integer> result = null;
+        for (String word : new LinkedHashSet<>(TextNormalizer.tokenize(text))) {
+            int allowed = Math.min(maxEdits, word.length() <= 3 ? 0 : word.length() <= 5 ? 1 : 2);
+            // Closest dictionary term per item, for this word
+            Map<UUID, Integer> best = new HashMap<>();
+            for (Map.Entry<String, Integer> e : dictionary.search(word, allowed).entrySet()) {
+                for (UUID id : terms.postings(e.getKey())) {
+                    best.merge(id, e.getValue(), Math::min);
+                }
+            }
+            if (result == null) {
+                result = best;
+            } else {
+                Map<UUID, Integer> both = new HashMap<>();
+                for (Map.Entry<UUID, Integer> e : result.entrySet()) {
+                    Integer d = best.get(e.getKey());
+                    if (d != null) {
+                        both.put(e.getKey(), e.getValue() + d);
+                    }
+                }
+                result = both;
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Map.of() : result;
+    }
+
+    /**
+     * Estimates how many candidates an index lookup of an expression yields.
+     * Conjunctions are as selective as their most selective part; a
+     * disjunction needs every alternative to be indexable. Negations and
+     * text shorter than a trigram cannot be looked up.
+     *
+     * @param e the expression
+     * @return estimated candidate count, or -1 if it needs a scan
+     */
+    public int estimate(Expr e) {
+        if (e instanceof TextTerm t) {
+            int title = t.query().title() == null ? 0 : titleGrams.estimate(t.text());
+            int creator = t.query().creator() == null ? 0 : creatorGrams.estimate(t.text());
+            return title < 0 || creator < 0 ? -1 : title + creator;
+        }
+        if (e instanceof YearTerm y) {
+            return years.count(y.query().yearFrom(), y.query().yearTo());
+        }
+        if (e instanceof CategoryTerm c) {
+            return categories.count(c.category());
+        }
+        if (e instanceof TypeTerm t) {
+            return types.count(t.type());
+        }
+        if (e instanceof And a) {
+            int best = -1;
+            for (Expr part : a.parts()) {
+                int n = estimate(part);
+                if (n >= 0 && (best < 0 || n < best)) {
+                    best = n;
+                }
+            }
+            return best;
+        }
+        if (e instanceof Or o) {
+            int sum = 0;
+            for (Expr part : o.parts()) {
+                int n = estimate(part);
+                if (n < 0) {
+                    return -1;
+                }
+                sum += n;
+            }
+            return sum;
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up the candidate ids of an indexable expression.
+     * The result is a superset of the matches unless {@link #isExact(Expr)}.
+     *
+     * @param e an expression whose estimate is not -1
+     * @return candidate ids
+     */
+    public Set<UUID> lookup(Expr e) {
+        if (e instanceof TextTerm t) {
+            return textCandidates(t.query());
+        }
+        if (e instanceof YearTerm y) {
+            return years.range(y.query().yearFrom(), y.query().yearTo());
+        }
+        if (e instanceof CategoryTerm c) {
+            return new HashSet<>(categories.get(c.category()));
+        }
+        if (e instanceof TypeTerm t) {
+            return new HashSet<>(types.get(t.type()));
+        }
+        if (e instanceof And a) {
+            Expr best = null;
+            int min = -1;
+            for (Expr part : a.parts()) {
+                int n = estimate(part);
+                if (n >= 0 && (min < 0 || n < min)) {
+                    min = n;
+                    best = part;
+                }
+            }
+            return lookup(best);
+        }
+        Set<UUID> ids = new HashSet<>();
+        for (Expr part : ((Or) e).parts()) {
+            ids.addAll(lookup(part));
+        }
+        return ids;
+    }
+
+    /**
+     * Checks if an index lookup returns exactly the matches of an
+     * expression, so they need no further check.
+     *
+     * @param e the expression
+     * @return true for year, category and type predicates
+     */
+    public boolean isExact(Expr e) {
+        return e instanceof YearTerm || e instanceof CategoryTerm || e instanceof TypeTerm;
+    }
+
+    /**
+     * Resolves the text and year criteria of a query to candidate item ids.
+     * Title and creator candidates are OR'ed, mirroring MediaItem.matches, and
+     * the year range is AND'ed with them.
+     * The result is a superset of the matches; candidates still have to be
+     * verified with MediaItem.matches.
+     *
+     * @param q the search query
+     * @return candidate ids, or null if the query cannot be answered from the
+     *         indexes and needs a full scan
+     */
+    public Set<UUID> candidates(Query q) {
+        if (q == null) {
+            return null;
+        }
+        Set<UUID> text = textCandidates(q);
+        if (!q.hasYearFilter()) {
+            return text;
+        }
+        // Small text candidate sets are cheaper to verify than to intersect
+        int inRange = years.count(q.yearFrom(), q.yearTo());
+        if (text != null && text.size() <= inRange) {
+            return text;
+        }
+        Set<UUID> byYear = years.range(q.yearFrom(), q.yearTo());
+        if (text != null) {
+            byYear.retainAll(text);
+        }
+        return byYear;
+    }
+
+    private Set<UUID> textCandidates(Query q) {
+        if (!q.hasText()) {
+            return null;
+        }
+        Set<UUID> ids = new HashSet<>();
+        if (q.title() != null) {
+            Set<UUID> byTitle = fieldCandidates(q.title(), titleGrams, titleTerms);
+            if (byTitle == null) {
+                return null;
+            }
+            ids.addAll(byTitle);
+        }
+        if (q.creator() != null) {
+            Set<UUID> byCreator = fieldCandidates(q.creator(), creatorGrams, creatorTerms);
+            if (byCreator == null) {
+                return null;
+            }
+            ids.addAll(byCreator);
+        }
+        return ids;
+    }
+
+    private static Set<UUID> fieldCandidates(String text, TrigramIndex grams, TokenIndex terms) {
+        Set<UUID> ids = grams.candidates(text);
+        if (ids == null || ids.isEmpty()) {
+            return ids;
+        }
+        // Words in the middle of the query are bounded by separators on both
+        // sides, so in any match they are whole terms of the field as well
+        List<String> inner = interiorTerms(text);
+        if (!inner.isEmpty()) {
+            ids.retainAll(terms.intersect(inner));
+        }
+        return ids;
+    }
+
+    private static List<String> interiorTerms(String text) {
+        List<String> terms = TextNormalizer.tokenize(text);
+        if (!terms.isEmpty() && Character.isLetterOrDigit(text.charAt(0))) {
+            terms.remove(0);
+        }
+        if (!terms.isEmpty() && Character.isLetterOrDigit(text.charAt(text.length() - 1))) {
+            terms.remove(terms.size() - 1);
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,72 @@
+package repo.index;
+
+import java.util.*;
+
+/**
+ * Index of documents by a set of discrete keys (e.g. categories or media
+ * types). Each key maps to the ids of the documents carrying it.
+ *
+ * @param <K> the key type
+ */
+public final class KeyIndex<K> {
+    private final Map<K, Set<UUID>> postings = new HashMap<>();
+    private final Map<UUID, Set<K>> keysById = new HashMap<>();
+
+    /**
+     * Indexes (or re-indexes) a document under its keys.
+     *
+     * @param id   document id
+     * @param keys the document's keys
+     */
+    public void index(UUID id, Collection<K> keys) {
+        remove(id);
+        Set<K> own = new HashSet<>(keys);
+        for (K key : own) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+        keysById.put(id, own);
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param id document id
+     */
+    public void remove(UUID id) {
+        Set<K> old = keysById.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (K key : old) {
+            Set<UUID> ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the documents carrying a key.
+     *
+     * @param key the key
+     * @return read-only set of document ids (empty if the key is unknown)
+     */
+    public Set<UUID> get(K key) {
+        Set<UUID> ids = postings.get(key);
+        return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Counts the documents carrying a key.
+     *
+     * @param key the key
+     * @return document count
+     */
+    public int count(K key) {
+        Set<UUID> ids = postings.get(key);
+        return ids == null ? 0 : ids.size();
+    }
+}
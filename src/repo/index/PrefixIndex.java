@@ -0,0 +1,79 @@
+package repo.index;
+
+import util.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Sorted dictionary of normalized phrases (titles, creator names) used for
+ * type-ahead completion.
+ * Phrases sharing a prefix are contiguous in the sorted order, so the first k
+ * completions are found with one O(log n) seek followed by k steps.
+ */
+public final class PrefixIndex {
+    private final TreeMap<String, Phrase> phrases = new TreeMap<>();
+    private final Map<UUID, Set<String>> keysById = new HashMap<>();
+
+    private static final class Phrase {
+        private final String label;
+        private int refs;
+
+        private Phrase(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Indexes (or re-indexes) the phrases belonging to a document.
+     *
+     * @param id      document id
+     * @param phrases display phrases (e.g. the title and each creator)
+     */
+    public void index(UUID id, Collection<String> phrases) {
+        remove(id);
+        Set<String> keys = new HashSet<>();
+        for (String label : phrases) {
+            String key = TextNormalizer.normalize(label);
+            if (key != null && keys.add(key)) {
+                this.phrases.computeIfAbsent(key, k -> new Phrase(label.trim())).refs++;
+            }
+        }
+        keysById.put(id, keys);
+    }
+
+    /**
+     * Removes a document's phrases from the index.
+     *
+     * @param id document id
+     */
+    public void remove(UUID id) {
+        Set<String> old = keysById.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String key : old) {
+            Phrase p = phrases.get(key);
+            if (p != null && --p.refs == 0) {
+                phrases.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Finds phrases starting with a prefix, in alphabetical order.
+     *
+     * @param prefix normalized prefix
+     * @param limit  maximum number of completions
+     * @return display labels of the first matching phrases
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> out = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, Phrase> e : phrases.tailMap(prefix, true).entrySet()) {
+            if (out.size() >= limit || !e.getKey().startsWith(prefix)) {
+                break;
+            }
+            out.add(e.getValue().label);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,108 @@
+package repo.index;
+
+import domain.media.MediaItem;
+import domain.query.*;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Plans and runs query-language expressions against the catalog indexes.
+ * <p>
+ * The top-level conjunction is split into parts. The indexable part with the
+ * smallest estimated candidate count drives the plan: its ids are looked up
+ * and fetched, and the remaining parts are applied as filters, cheap
+ * structural checks (type, category, year) before text matching, so each
+ * filter works on an already shrunken set. Without an indexable part the
+ * whole expression is evaluated in a single scan.
+ * </p>
+ */
+public final class QueryPlanner {
+    private static final Comparator<MediaItem> BY_TITLE = Comparator.comparing(MediaItem::getTitleKey)
+            .thenComparing(MediaItem::getId);
+
+    private final CatalogIndex index;
+
+    /**
+     * Creates a planner over the given indexes.
+     *
+     * @param index the catalog indexes
+     */
+    public QueryPlanner(CatalogIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Plans and runs an expression.
+     *
+     * @param expr  the parsed expression
+     * @param fetch resolves an id to its item (null if gone)
+     * @param scan  evaluates a predicate over the whole catalog
+     * @return the matching items, ordered by title, with the executed plan
+     */
+    public QueryResult execute(Expr expr, Function<UUID, MediaItem> fetch,
+            Function<Predicate<MediaItem>, List<MediaItem>> scan) {
+        List<Expr> parts = expr instanceof And a ? new ArrayList<>(a.parts()) : new ArrayList<>(List.of(expr));
+        Expr driver = null;
+        int best = -1;
+        for (Expr part : parts) {
+            int n = index.estimate(part);
+            if (n >= 0 && (best < 0 || n < best)) {
+                best = n;
+                driver = part;
+            }
+        }
+
+        List<PlanStep> plan = new ArrayList<>();
+        List<MediaItem> rows;
+        if (driver == null) {
+            rows = new ArrayList<>(scan.apply(expr::test));
+            plan.add(new PlanStep("scan", expr.toString(), rows.size()));
+        } else {
+            Set<UUID> ids = index.lookup(driver);
+            rows = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                MediaItem item = fetch.apply(id);
+                if (item != null) {
+                    rows.add(item);
+                }
+            }
+            plan.add(new PlanStep("index", driver.toString(), rows.size()));
+            if (index.isExact(driver)) {
+                parts.remove(driver);
+            }
+
+            // Cheapest checks first, most selective first within the same cost
+            parts.sort(Comparator.comparingInt(QueryPlanner::cost).thenComparingInt(this::selectivity));
+            for (Expr filter : parts) {
+                if (rows.isEmpty()) {
+                    break;
+                }
+                rows.removeIf(item -> !filter.test(item));
+                plan.add(new PlanStep("filter", filter.toString(), rows.size()));
+            }
+        }
+        rows.sort(BY_TITLE);
+        return new QueryResult(rows, plan);
+    }
+
+    // Relative cost of evaluating a predicate on one item
+    private static int cost(Expr e) {
+        if (e instanceof TypeTerm || e instanceof CategoryTerm || e instanceof YearTerm) {
+            return 0;
+        }
+        if (e instanceof TextTerm) {
+            return 1;
+        }
+        if (e instanceof Not n) {
+            return cost(n.inner());
+        }
+        return 2;
+    }
+
+    private int selectivity(Expr e) {
+        int n = index.estimate(e);
+        return n < 0 ? Integer.MAX_VALUE : n;
+    }
+}
@@ -0,0 +1,131 @@
+package repo.index;
+
+import domain.Query;
+import domain.media.MediaItem;
+import util.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Scores search hits with BM25 term weighting over the title and creator
+ * fields and keeps only the best K in a bounded min-heap.
+ * Title terms weigh more than creator terms, and an exact title match is
+ * boosted above any partial match.
+ */
+public final class RelevanceRanker {
+    // Standard BM25 saturation and length normalization parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double CREATOR_WEIGHT = 1.0;
+    private static final double EXACT_TITLE_BOOST = 100.0;
+
+    // Best first; ties broken by title and id so the order is deterministic
+    private static final Comparator<Scored> BEST_FIRST = Comparator
+            .comparingDouble(Scored::score).reversed()
+            .thenComparing(s -> s.item().getTitleKey())
+            .thenComparing(s -> s.item().getId());
+
+    private final TokenIndex titleTerms;
+    private final TokenIndex creatorTerms;
+
+    private record Scored(MediaItem item, double score) {
+    }
+
+    /**
+     * Creates a ranker over the given term indexes.
+     *
+     * @param titleTerms   term index of titles
+     * @param creatorTerms term index of creators
+     */
+    public RelevanceRanker(TokenIndex titleTerms, TokenIndex creatorTerms) {
+        this.titleTerms = titleTerms;
+        this.creatorTerms = creatorTerms;
+    }
+
+    /**
+     * Selects the K most relevant hits in O(n log K).
+     *
+     * @param q    the query the hits matched
+     * @param hits matching items
+     * @param k    maximum number of results
+     * @return up to k items, most relevant first
+     */
+    public List<MediaItem> topK(Query q, Collection<MediaItem> hits, int k) {
+        List<String> titleQuery = q == null ? List.of() : TextNormalizer.tokenize(q.title());
+        List<String> creatorQuery = q == null ? List.of() : TextNormalizer.tokenize(q.creator());
+        String exactTitle = q == null ? null : q.title();
+        Map<String, Double> idf = new HashMap<>();
+        for (String term : titleQuery) {
+            idf.computeIfAbsent(term, this::idf);
+        }
+        for (String term : creatorQuery) {
+            idf.computeIfAbsent(term, this::idf);
+        }
+
+        // Min-heap: the root is the weakest of the current top K
+        PriorityQueue<Scored> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, BEST_FIRST.reversed());
+        for (MediaItem item : hits) {
+            double score = TITLE_WEIGHT * bm25(titleTerms, item.getId(), titleQuery, idf)
+                    + CREATOR_WEIGHT * bm25(creatorTerms, item.getId(), creatorQuery, idf);
+            if (exactTitle != null && exactTitle.equals(item.getTitleKey())) {
+                score += EXACT_TITLE_BOOST;
+            }
+            Scored s = new Scored(item, score);
+            if (heap.size() < k) {
+                heap.add(s);
+            } else if (BEST_FIRST.compare(s, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(s);
+            }
+        }
+
+        List<Scored> best = new ArrayList<>(heap);
+        best.sort(BEST_FIRST);
+        List<MediaItem> out = new ArrayList<>(best.size());
+        for (Scored s : best) {
+            out.add(s.item());
+        }
+        return out;
+    }
+
+    /**
+     * Inverse document frequency of a term across both fields (BM25F style),
+     * so a term is equally rare in the title and creator fields and the field
+     * weights decide which match counts more.
+     */
+    private double idf(String term) {
+        Set<UUID> a = titleTerms.postings(term);
+        Set<UUID> b = creatorTerms.postings(term);
+        if (a.size() > b.size()) {
+            Set<UUID> t = a;
+            a = b;
+            b = t;
+        }
+        int df = b.size();
+        for (UUID id : a) {
+            if (!b.contains(id)) {
+                df++;
+            }
+        }
+        double n = Math.max(titleTerms.documentCount(), creatorTerms.documentCount());
+        return Math.log(1 + (n - df + 0.5) / (df + 0.5));
+    }
+
+    private static double bm25(TokenIndex index, UUID id, List<String> terms, Map<String, Double> idf) {
+        if (terms.isEmpty()) {
+            return 0;
+        }
+        double avgLength = Math.max(index.averageLength(), 1);
+        double norm = K1 * (1 - B + B * index.length(id) / avgLength);
+        double score = 0;
+        for (String term : terms) {
+            int tf = index.termFrequency(id, term);
+            if (tf > 0) {
+                score += idf.get(term) * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,163 @@
+package repo.index;
+
+import util.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Inverted index from word terms to the ids of the documents containing them.
+ * Remembers the term frequencies indexed per id so a document can be
+ * re-indexed after it changes, and so relevance scoring has the statistics it
+ * needs.
+ */
+public final class TokenIndex {
+    private final Map<String, Set<UUID>> postings = new HashMap<>();
+    private final Map<UUID, Map<String, Integer>> termsById = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * Indexes (or re-indexes) a document made of one or more text fields.
+     *
+     * @param id    document id
+     * @param texts text fields to tokenize
+     */
+    public void index(UUID id, Collection<String> texts) {
+        remove(id);
+        Map<String, Integer> terms = new HashMap<>();
+        for (String text : texts) {
+            for (String term : TextNormalizer.tokenize(text)) {
+                terms.merge(term, 1, Integer::sum);
+                totalLength++;
+            }
+        }
+        for (String term : terms.keySet()) {
+            postings.computeIfAbsent(term, k -> new HashSet<>()).add(id);
+        }
+        termsById.put(id, terms);
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param id document id
+     */
+    public void remove(UUID id) {
+        Map<String, Integer> old = termsById.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (Map.Entry<String, Integer> e : old.entrySet()) {
+            String term = e.getKey();
+            totalLength -= e.getValue();
+            Set<UUID> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the posting list of a single term.
+     *
+     * @param term normalized term
+     * @return read-only set of document ids (empty if the term is unknown)
+     */
+    public Set<UUID> postings(String term) {
+        Set<UUID> ids = postings.get(term);
+        return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Finds the documents containing every given term.
+     * Walks the shortest posting list and probes the others, so the cost is
+     * bounded by the rarest term rather than by the number of documents.
+     *
+     * @param terms normalized terms (must not be empty)
+     * @return ids of documents containing all terms
+     */
+    public Set<UUID> intersect(Collection<String> terms) {
+        List<Set<UUID>> lists = new ArrayList<>();
+        for (String term : new HashSet<>(terms)) {
+            Set<UUID> ids = postings.get(term);
+            if (ids == null) {
+                return new HashSet<>();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<UUID> result = new HashSet<>();
+        outer:
+        for (UUID id : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) {
+                    continue outer;
+                }
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the documents containing a term.
+     *
+     * @param term normalized term
+     * @return document frequency
+     */
+    public int documentFrequency(String term) {
+        Set<UUID> ids = postings.get(term);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Counts how often a term occurs in a document.
+     *
+     * @param id   document id
+     * @param term normalized term
+     * @return term frequency (0 if absent)
+     */
+    public int termFrequency(UUID id, String term) {
+        Map<String, Integer> terms = termsById.get(id);
+        return terms == null ? 0 : terms.getOrDefault(term, 0);
+    }
+
+    /**
+     * Gets the number of terms in a document.
+     *
+     * @param id document id
+     * @return document length in terms
+     */
+    public int length(UUID id) {
+        Map<String, Integer> terms = termsById.get(id);
+        if (terms == null) {
+            return 0;
+        }
+        int n = 0;
+        for (int tf : terms.values()) {
+            n += tf;
+        }
+        return n;
+    }
+
+    /**
+     * Gets the number of indexed documents.
+     *
+     * @return document count
+     */
+    public int documentCount() {
+        return termsById.size();
+    }
+
+    /**
+     * Gets the average document length across the index.
+     *
+     * @return average number of terms per document
+     */
+    public double averageLength() {
+        return termsById.isEmpty() ? 0 : (double) totalLength / termsById.size();
+    }
+}
@@ -0,0 +1,215 @@
+package repo.index;
+
+import util.TextNormalizer;
+
+import java.util.*;
+
+/**
+ * Substring index mapping every 3-character sequence (trigram) to the ids of
+ * the documents containing it.
+ * Any string that contains a query also contains all of the query's
+ * trigrams, so intersecting their posting lists yields a superset of the
+ * true matches that only needs a final contains check.
+ * To stay compact, each trigram is packed into a single long key, documents
+ * get int surrogate ids, and posting lists are sorted int arrays. The trigrams
+ * of a document are not kept: on re-index they are recomputed from the texts
+ * it was last indexed with, which are the caller's own strings.
+ */
+public final class TrigramIndex {
+    /**
+     * Shortest query the index can answer.
+     */
+    public static final int GRAM = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<UUID, Integer> docs = new HashMap<>();
+    private final List<UUID> ids = new ArrayList<>();
+    // Texts each surrogate was last indexed with, null once removed
+    private final List<Collection<String>> texts = new ArrayList<>();
+
+    /**
+     * Indexes (or re-indexes) a document made of one or more text fields.
+     * Trigrams never span two fields.
+     *
+     * @param id    document id
+     * @param texts text fields to index
+     */
+    public void index(UUID id, Collection<String> texts) {
+        Integer doc = docs.get(id);
+        if (doc == null) {
+            doc = ids.size();
+            docs.put(id, doc);
+            ids.add(id);
+            this.texts.add(null);
+        } else {
+            unindex(doc);
+        }
+        for (long gram : grams(texts)) {
+            postings.computeIfAbsent(gram, k -> new Postings()).add(doc);
+        }
+        this.texts.set(doc, List.copyOf(texts));
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param id document id
+     */
+    public void remove(UUID id) {
+        Integer doc = docs.get(id);
+        if (doc != null) {
+            unindex(doc);
+        }
+    }
+
+    /**
+     * Finds the documents that may contain the given text.
+     *
+     * @param text normalized query text
+     * @return candidate ids, or null if the text is shorter than a trigram
+     */
+    public Set<UUID> candidates(String text) {
+        if (text == null || text.length() < GRAM) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : grams(List.of(text))) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new HashSet<>();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = lists.get(i).retain(result, size);
+        }
+        Set<UUID> out = new HashSet<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            out.add(ids.get(result[i]));
+        }
+        return out;
+    }
+
+    /**
+     * Estimates how many candidates the given text would produce, as the
+     * size of its rarest trigram's posting list (an upper bound).
+     *
+     * @param text normalized query text
+     * @return estimated candidate count, or -1 if the text is shorter than a
+     *         trigram
+     */
+    public int estimate(String text) {
+        if (text == null || text.length() < GRAM) {
+            return -1;
+        }
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            Postings list = postings.get(pack(text, i));
+            if (list == null) {
+                return 0;
+            }
+            min = Math.min(min, list.size);
+        }
+        return min;
+    }
+
+    // Drops a surrogate from the postings of the grams it was indexed with
+    private void unindex(int doc) {
+        Collection<String> old = texts.get(doc);
+        if (old == null) {
+            return;
+        }
+        for (long gram : grams(old)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(doc) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        texts.set(doc, null);
+    }
+
+    // Distinct packed trigrams of the normalized texts, sorted
+    private static long[] grams(Collection<String> texts) {
+        List<String> normalized = new ArrayList<>(texts.size());
+        int total = 0;
+        for (String text : texts) {
+            String norm = TextNormalizer.normalize(text);
+            if (norm != null && norm.length() >= GRAM) {
+                normalized.add(norm);
+                total += norm.length() - GRAM + 1;
+            }
+        }
+        long[] grams = new long[total];
+        int n = 0;
+        for (String norm : normalized) {
+            for (int i = 0; i + GRAM <= norm.length(); i++) {
+                grams[n++] = pack(norm, i);
+            }
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // Three 16-bit chars side by side in one long
+    private static long pack(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    // Growable sorted array of surrogate ids
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int size;
+
+        void add(int doc) {
+            int at = size == 0 || docs[size - 1] < doc ? size : Arrays.binarySearch(docs, 0, size, doc);
+            if (at >= 0 && at < size) {
+                return;
+            }
+            at = at < 0 ? -at - 1 : at;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, at, docs, at + 1, size - at);
+            docs[at] = doc;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(docs, at + 1, docs, at, size - at - 1);
+            size--;
+            if (size > 0 && size <= docs.length / 4) {
+                docs = Arrays.copyOf(docs, docs.length / 2);
+            }
+            return true;
+        }
+
+        // Keeps only the ids of a sorted prefix also found here, returns its new length
+        int retain(int[] ids, int length) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < length && j < size; i++) {
+                while (j < size && docs[j] < ids[i]) {
+                    j++;
+                }
+                if (j < size && docs[j] == ids[i]) {
+                    ids[kept++] = ids[i];
+                }
+            }
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package repo.index;
+
+import java.util.*;
+
+/**
+ * Sorted index of documents bucketed by year.
+ * A range lookup seeks to the first bucket in O(log years) and then only
+ * visits the buckets inside the range.
+ */
+public final class YearIndex {
+    private final TreeMap<Integer, Set<UUID>> buckets = new TreeMap<>();
+    private final Map<UUID, Integer> yearById = new HashMap<>();
+
+    /**
+     * Indexes (or re-indexes) a document under its year.
+     *
+     * @param id   document id
+     * @param year the document's year
+     */
+    public void index(UUID id, int year) {
+        Integer old = yearById.put(id, year);
+        if (old != null) {
+            if (old == year) {
+                return;
+            }
+            removeFromBucket(id, old);
+        }
+        buckets.computeIfAbsent(year, k -> new HashSet<>()).add(id);
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param id document id
+     */
+    public void remove(UUID id) {
+        Integer old = yearById.remove(id);
+        if (old != null) {
+            removeFromBucket(id, old);
+        }
+    }
+
+    /**
+     * Finds the documents whose year lies in an inclusive range.
+     *
+     * @param from earliest year, or null for no lower bound
+     * @param to   latest year, or null for no upper bound
+     * @return ids of documents in the range
+     */
+    public Set<UUID> range(Integer from, Integer to) {
+        Set<UUID> ids = new HashSet<>();
+        for (Set<UUID> bucket : view(from, to).values()) {
+            ids.addAll(bucket);
+        }
+        return ids;
+    }
+
+    /**
+     * Counts the documents whose year lies in an inclusive range without
+     * collecting them.
+     *
+     * @param from earliest year, or null for no lower bound
+     * @param to   latest year, or null for no upper bound
+     * @return number of documents in the range
+     */
+    public int count(Integer from, Integer to) {
+        int n = 0;
+        for (Set<UUID> bucket : view(from, to).values()) {
+            n += bucket.size();
+        }
+        return n;
+    }
+
+    private NavigableMap<Integer, Set<UUID>> view(Integer from, Integer to) {
+        if (from == null && to == null) {
+            return buckets;
+        }
+        if (from == null) {
+            return buckets.headMap(to, true);
+        }
+        if (to == null) {
+            return buckets.tailMap(from, true);
+        }
+        return buckets.subMap(from, true, to, true);
+    }
+
+    private void removeFromBucket(UUID id, int year) {
+        Set<UUID> bucket = buckets.get(year);
+        if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                buckets.remove(year);
+            }
+        }
+    }
+}
@@ -1,25 +1,43 @@
 package repo.inmem;
 
 import domain.inventory.Holding;
+import domain.inventory.HoldingStatus;
 import repo.InventoryRepository;
+import util.Validation;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.stream.Collectors;
 
 /**
  * In-memory implementation of InventoryRepository.
- * Stores holdings in a HashMap.
+ * Stores holdings in a HashMap with a barcode index, and keeps per-title
+ * counters for each HoldingStatus, updated by the holdings themselves on every
+ * transition.
  */
 public final class InMemoryInventoryRepository implements InventoryRepository {
+    private static final int STATUSES = HoldingStatus.values().length;
+
     private final Map<UUID, Holding> store = new HashMap<>();
     private final Map<UUID, List<UUID>> byMedia = new HashMap<>();
+    private final Map<String, UUID> byBarcode = new HashMap<>();
+    private final Map<UUID, AtomicIntegerArray> statusCounts = new ConcurrentHashMap<>();
 
     @Override
     public Holding save(Holding h) {
-        store.put(h.getId(), h);
-        List<UUID> ids = byMedia.computeIfAbsent(h.getItem().getId(), k -> new ArrayList<>());
-        if (!ids.contains(h.getId())) {
-            ids.add(h.getId());
+        String barcode = h.getBarcode();
+        if (barcode != null) {
+            UUID owner = byBarcode.putIfAbsent(barcode, h.getId());
+            Validation.require(owner == null || owner.equals(h.getId()), "Barcode already in use: " + barcode);
+        }
+        if (store.put(h.getId(), h) == null) {
+            // First save: register the copy and start tracking its status
+            UUID mediaId = h.getItem().getId();
+            byMedia.computeIfAbsent(mediaId, k -> new ArrayList<>()).add(h.getId());
+            AtomicIntegerArray counts = statusCounts.computeIfAbsent(mediaId, k -> new AtomicIntegerArray(STATUSES));
+            h.setListener(this::onStatusChange);
+            counts.incrementAndGet(h.getStatus().ordinal());
         }
         return h;
     }
@@ -29,9 +47,49 @@ public final class InMemoryInventoryRepository implements InventoryRepository {
         return Optional.ofNullable(store.get(id));
     }
 
+    @Override
+    public Optional<Holding> findByBarcode(String barcode) {
+        UUID id = byBarcode.get(Holding.normalizeBarcode(barcode));
+        return id == null ? Optional.empty() : Optional.ofNullable(store.get(id));
+    }
+
     @Override
     public List<Holding> findByMediaId(UUID mediaId) {
         List<UUID> ids = byMedia.getOrDefault(mediaId, List.of());
         return ids.stream().map(store::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
+
+    @Override
+    public Optional<Holding> findFirstByStatus(UUID mediaId, HoldingStatus status) {
+        // No shortcut on a zero counter: it is updated just after the status
+        // flips, so for a moment it can miss a copy that is already visible
+        for (UUID id : byMedia.getOrDefault(mediaId, List.of())) {
+            Holding h = store.get(id);
+            if (h != null && h.getStatus() == status) {
+                return Optional.of(h);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int countByStatus(UUID mediaId, HoldingStatus status) {
+        AtomicIntegerArray counts = statusCounts.get(mediaId);
+        return counts == null ? 0 : counts.get(status.ordinal());
+    }
+
+    @Override
+    public Map<UUID, Integer> availableCounts(Collection<UUID> mediaIds) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (UUID mediaId : mediaIds) {
+            counts.put(mediaId, countByStatus(mediaId, HoldingStatus.AVAILABLE));
+        }
+        return counts;
+    }
+
+    private void onStatusChange(Holding h, HoldingStatus from, HoldingStatus to) {
+        AtomicIntegerArray counts = statusCounts.get(h.getItem().getId());
+        counts.incrementAndGet(to.ordinal());
+        counts.decrementAndGet(from.ordinal());
+    }
 }
@@ -1,42 +1,125 @@
 package repo.inmem;
 
 import domain.loan.Loan;
+import domain.loan.LoanRecord;
 import repo.LoanRepository;
+import repo.archive.LoanArchive;
+import util.Validation;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * In-memory implementation of LoanRepository.
- * Stores loans in a HashMap.
+ * Keeps active loans in a HashMap indexed by member and by due date; returned
+ * loans move to a columnar LoanArchive, so the map and the objects it keeps
+ * alive only grow with the loans currently out.
  */
 public final class InMemoryLoanRepository implements LoanRepository {
     private final Map<UUID, Loan> store = new HashMap<>();
+    private final Map<UUID, Set<UUID>> activeByMember = new HashMap<>();
+    private final NavigableMap<LocalDate, Set<UUID>> activeByDue = new TreeMap<>();
+    private final LoanArchive archive = new LoanArchive();
 
     @Override
     public Loan save(Loan loan) {
-        store.put(loan.getId(), loan);
+        validate(loan);
+        publish(loan);
         return loan;
     }
 
+    @Override
+    public List<Loan> saveAll(List<Loan> loans) {
+        // Validate the whole batch first; publishing cannot fail afterwards
+        loans.forEach(this::validate);
+        loans.forEach(this::publish);
+        return loans;
+    }
+
+    private void validate(Loan loan) {
+        Validation.nonNull(loan, "loan");
+        // Only the return path knows the fine, so it archives through archive()
+        Validation.require(!loan.isReturned(), "Returned loans must be archived with their fine");
+    }
+
+    private void publish(Loan loan) {
+        store.put(loan.getId(), loan);
+        activeByMember.computeIfAbsent(loan.getBorrower().getId(), k -> new LinkedHashSet<>()).add(loan.getId());
+        activeByDue.computeIfAbsent(loan.getDueOn(), k -> new LinkedHashSet<>()).add(loan.getId());
+    }
+
+    @Override
+    public void archive(Loan loan, BigDecimal fine) {
+        Validation.require(store.containsKey(loan.getId()), "Loan is not active: " + loan.getId());
+        archive.append(loan, fine);
+        store.remove(loan.getId());
+        unindex(activeByMember, loan.getBorrower().getId(), loan.getId());
+        unindex(activeByDue, loan.getDueOn(), loan.getId());
+    }
+
     @Override
     public Optional<Loan> findById(UUID id) {
         return Optional.ofNullable(store.get(id));
     }
 
+    @Override
+    public Optional<LoanRecord> findRecord(UUID loanId) {
+        return archive.find(loanId);
+    }
+
+    @Override
+    public List<LoanRecord> findHistoryByMemberId(UUID memberId) {
+        return archive.byMember(memberId);
+    }
+
     @Override
     public List<Loan> findActiveByMemberId(UUID memberId) {
-        return store.values().stream()
-                .filter(l -> l.getBorrower().getId().equals(memberId))
-                .filter(l -> !l.isReturned())
-                .collect(Collectors.toList());
+        return active(memberId).collect(Collectors.toList());
+    }
+
+    @Override
+    public int countActiveByMemberId(UUID memberId) {
+        // Counts what findActiveByMemberId lists, even if a loan was marked
+        // returned without being archived
+        return (int) active(memberId).count();
+    }
+
+    private Stream<Loan> active(UUID memberId) {
+        return activeByMember.getOrDefault(memberId, Set.of()).stream()
+                .map(store::get)
+                .filter(l -> l != null && !l.isReturned());
     }
 
     @Override
     public List<Loan> findOverdue(LocalDate today) {
-        return store.values().stream()
-                .filter(l -> !l.isReturned() && l.getDueOn().isBefore(today))
+        return due(activeByDue.headMap(today, false));
+    }
+
+    @Override
+    public List<Loan> findDueBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return due(activeByDue.subMap(from, true, to, true));
+    }
+
+    // Flattens a range of the due-date index into loans, earliest due first
+    private List<Loan> due(Map<LocalDate, Set<UUID>> range) {
+        return range.values().stream()
+                .flatMap(Set::stream)
+                .map(store::get)
+                .filter(l -> l != null && !l.isReturned())
                 .collect(Collectors.toList());
     }
+
+    // Removes an id from its key's set, dropping the set once empty
+    private static <K> void unindex(Map<K, Set<UUID>> index, K key, UUID id) {
+        Set<UUID> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
 }
@@ -1,30 +1,133 @@
 package repo.inmem;
 
+import domain.Query;
+import domain.media.Book;
 import domain.media.MediaItem;
+import domain.query.Expr;
+import domain.query.QueryResult;
 import repo.MediaRepository;
+import repo.index.CatalogIndex;
+import repo.index.QueryPlanner;
 
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * In-memory implementation of MediaRepository.
- * Stores media items in a HashMap.
+ * Stores media items in a SegmentedStore and keeps a CatalogIndex for
+ * searching; queries the index cannot answer are scanned by segment, in
+ * parallel once the catalog is large enough.
  */
 public final class InMemoryMediaRepository implements MediaRepository {
-    private final Map<UUID, MediaItem> store = new HashMap<>();
+    // Defaults sized so small catalogs never pay for task forking
+    private static final int DEFAULT_SEGMENT_SIZE = 4096;
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 32_768;
+
+    private final SegmentedStore<MediaItem> store;
+    private final CatalogIndex index = new CatalogIndex();
+    private final QueryPlanner planner = new QueryPlanner(index);
+    private long version;
+
+    /**
+     * Creates a repository with the default segment size and parallel
+     * scan threshold.
+     */
+    public InMemoryMediaRepository() {
+        this(DEFAULT_SEGMENT_SIZE, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a repository with a specific scan layout.
+     *
+     * @param segmentSize       number of items per storage segment
+     * @param parallelThreshold catalog size from which scans run in parallel
+     */
+    public InMemoryMediaRepository(int segmentSize, int parallelThreshold) {
+        this.store = new SegmentedStore<>(segmentSize, parallelThreshold);
+    }
 
     @Override
     public MediaItem save(MediaItem item) {
         store.put(item.getId(), item);
+        index.add(item);
+        version++;
         return item;
     }
 
+    @Override
+    public long version() {
+        return version;
+    }
+
     @Override
     public Optional<MediaItem> findById(UUID id) {
         return Optional.ofNullable(store.get(id));
     }
 
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        UUID id = index.findByIsbn(isbn);
+        return id == null ? Optional.empty() : Optional.ofNullable((Book) store.get(id));
+    }
+
     @Override
     public List<MediaItem> findAll() {
-        return new ArrayList<>(store.values());
+        return store.values();
+    }
+
+    @Override
+    public Stream<MediaItem> stream() {
+        return store.stream();
+    }
+
+    @Override
+    public Stream<MediaItem> stream(Query q) {
+        Set<UUID> ids = index.candidates(q);
+        Stream<MediaItem> source = ids == null ? store.stream() : ids.stream().map(store::get);
+        return source.filter(m -> m != null && m.matches(q));
+    }
+
+    @Override
+    public List<MediaItem> search(Query q) {
+        // Resolve candidates from the index; fall back to a scan when it cannot help
+        Set<UUID> ids = index.candidates(q);
+        if (ids == null) {
+            return store.filter(m -> m.matches(q));
+        }
+        return ids.stream()
+                .map(store::get)
+                .filter(m -> m != null && m.matches(q))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<MediaItem> searchRanked(Query q, int k) {
+        return index.rank(q, search(q), k);
+    }
+
+    @Override
+    public List<MediaItem> searchFuzzy(Query q, int maxEdits) {
+        if (q == null || !q.hasText()) {
+            return search(q);
+        }
+        Map<UUID, Integer> edits = index.fuzzy(q, maxEdits);
+        return edits.keySet().stream()
+                .map(store::get)
+                .filter(m -> m != null && q.matchesYear(m.getYear()))
+                .sorted(Comparator.comparingInt((MediaItem m) -> edits.get(m.getId()))
+                        .thenComparing(MediaItem::getTitleKey)
+                        .thenComparing(MediaItem::getId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public QueryResult query(Expr expr) {
+        return planner.execute(expr, store::get, store::filter);
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return index.suggest(prefix, limit);
     }
 }
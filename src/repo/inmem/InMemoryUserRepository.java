@@ -4,6 +4,7 @@ import domain.user.User;
 import repo.UserRepository;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * In-memory implementation of UserRepository.
@@ -52,4 +53,9 @@ public final class InMemoryUserRepository implements UserRepository {
     public List<User> findAll() {
         return new ArrayList<>(store.values());
     }
+
+    @Override
+    public Stream<User> stream() {
+        return store.values().stream();
+    }
 }
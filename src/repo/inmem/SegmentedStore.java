@@ -0,0 +1,174 @@
+package repo.inmem;
+
+import util.Validation;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Append-only store of values in fixed-size array segments, in insertion
+ * order. Replacing a value keeps its slot.
+ * Full scans above a size threshold are split by segment across a ForkJoin
+ * pool; the partial results are concatenated in segment order, so a parallel
+ * scan returns exactly what a sequential one would.
+ *
+ * @param <T> the stored value type
+ */
+public final class SegmentedStore<T> {
+    private final int segmentSize;
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+    private final List<Object[]> segments = new ArrayList<>();
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private int size;
+
+    /**
+     * Creates a store scanned on the common ForkJoin pool.
+     *
+     * @param segmentSize       number of values per segment
+     * @param parallelThreshold minimum size at which scans run in parallel
+     */
+    public SegmentedStore(int segmentSize, int parallelThreshold) {
+        this(segmentSize, parallelThreshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a store scanned on the given ForkJoin pool.
+     *
+     * @param segmentSize       number of values per segment
+     * @param parallelThreshold minimum size at which scans run in parallel
+     * @param pool              pool that runs parallel scans
+     */
+    public SegmentedStore(int segmentSize, int parallelThreshold, ForkJoinPool pool) {
+        Validation.require(segmentSize > 0, "segmentSize must be > 0");
+        Validation.require(parallelThreshold >= 0, "parallelThreshold must be >= 0");
+        this.segmentSize = segmentSize;
+        this.parallelThreshold = parallelThreshold;
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    /**
+     * Stores a value, replacing the one with the same id in place.
+     *
+     * @param id    value id
+     * @param value the value
+     */
+    public void put(UUID id, T value) {
+        Integer slot = slots.get(id);
+        if (slot == null) {
+            slot = size++;
+            slots.put(id, slot);
+            if (slot % segmentSize == 0) {
+                segments.add(new Object[segmentSize]);
+            }
+        }
+        segments.get(slot / segmentSize)[slot % segmentSize] = value;
+    }
+
+    /**
+     * Gets a value by id.
+     *
+     * @param id value id
+     * @return the value, or null if absent
+     */
+    public T get(UUID id) {
+        Integer slot = slots.get(id);
+        return slot == null ? null : at(slot);
+    }
+
+    /**
+     * Gets the number of stored values.
+     *
+     * @return value count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Streams the values in insertion order without copying them.
+     * The stream covers the values present when it was created; values added
+     * later are not visited. It splits by slot range, so it also runs in
+     * parallel.
+     *
+     * @return a lazy stream of values
+     */
+    public Stream<T> stream() {
+        int n = size;
+        return IntStream.range(0, n).mapToObj(this::at);
+    }
+
+    /**
+     * Copies all values in insertion order.
+     *
+     * @return a new list of values
+     */
+    public List<T> values() {
+        return filter(v -> true);
+    }
+
+    /**
+     * Scans every value and keeps those accepted by the filter.
+     * Runs in parallel by segment once the store reaches the threshold.
+     *
+     * @param filter the predicate to apply (must be thread-safe)
+     * @return accepted values in insertion order
+     */
+    public List<T> filter(Predicate<? super T> filter) {
+        if (size < parallelThreshold || segments.size() < 2) {
+            return scan(0, segments.size(), filter);
+        }
+        return pool.invoke(new ScanTask(0, segments.size(), filter));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T at(int slot) {
+        return (T) segments.get(slot / segmentSize)[slot % segmentSize];
+    }
+
+    // Scans the segments [from, to) sequentially
+    private List<T> scan(int from, int to, Predicate<? super T> filter) {
+        List<T> out = new ArrayList<>();
+        int end = Math.min(to * segmentSize, size);
+        for (int slot = from * segmentSize; slot < end; slot++) {
+            T value = at(slot);
+            if (filter.test(value)) {
+                out.add(value);
+            }
+        }
+        return out;
+    }
+
+    private final class ScanTask extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final Predicate<? super T> filter;
+
+        ScanTask(int from, int to, Predicate<? super T> filter) {
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from <= 1) {
+                return scan(from, to, filter);
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(from, mid, filter);
+            left.fork();
+            List<T> right = new ScanTask(mid, to, filter).compute();
+            // Left half first keeps the merged result in insertion order
+            List<T> out = left.join();
+            out.addAll(right);
+            return out;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package services;
 
+import domain.Facets;
+import domain.Page;
 import domain.Query;
+import domain.SearchResult;
 import domain.inventory.Holding;
 import domain.inventory.HoldingStatus;
+import domain.media.Book;
 import domain.media.MediaItem;
+import domain.query.QueryParser;
+import domain.query.QueryResult;
 import infrastructure.ConsoleView;
 import repo.*;
+import util.LruCache;
+import util.TextNormalizer;
 import util.Validation;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
@@ -20,8 +30,24 @@ import java.util.stream.Collectors;
  * Handles adding titles, adding copies, and searching.
  */
 public final class CatalogService {
+    // Items shown per page in the interactive search
+    private static final int PAGE_SIZE = 10;
+    // Paged result sets kept for cursors; older ones expire
+    private static final int SNAPSHOT_CAPACITY = 64;
+    // Default number of distinct queries whose results are cached
+    private static final int DEFAULT_CACHE_CAPACITY = 256;
+    // Typo tolerance of fuzzy search, in edits per word
+    private static final int MAX_EDITS = 2;
+    private static final Query ALL = new Query(null, null, null);
+
     private final MediaRepository mediaRepo;
     private final InventoryRepository invRepo;
+    private final LruCache<String, List<MediaItem>> snapshots = new LruCache<>(SNAPSHOT_CAPACITY);
+    private final LruCache<CacheKey, SearchResult> results;
+
+    // Results are only valid for the catalog version they were computed on
+    private record CacheKey(Query query, long version) {
+    }
 
     /**
      * Creates a new CatalogService.
@@ -30,14 +56,27 @@ public final class CatalogService {
      * @param invRepo   repository for physical copies
      */
     public CatalogService(MediaRepository mediaRepo, InventoryRepository invRepo) {
+        this(mediaRepo, invRepo, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a new CatalogService with a specific result cache size.
+     * 
+     * @param mediaRepo     repository for media titles
+     * @param invRepo       repository for physical copies
+     * @param cacheCapacity number of distinct queries to keep results for
+     */
+    public CatalogService(MediaRepository mediaRepo, InventoryRepository invRepo, int cacheCapacity) {
         this.mediaRepo = Objects.requireNonNull(mediaRepo, "mediaRepo");
         this.invRepo = Objects.requireNonNull(invRepo, "invRepo");
+        this.results = new LruCache<>(cacheCapacity);
     }
 
     /**
      * Interactive search helper that prompts for a query, searches, and allows
      * selecting an item.
-     * returns the selected item (or empty if cancelled/no results).
+     * Results are shown one page at a time; returns the selected item (or empty
+     * if cancelled/no results).
      *
      * @param view the console view to use for I/O
      * @return Optional containing the selected MediaItem, or empty if none selected
@@ -45,31 +84,52 @@ public final class CatalogService {
     public Optional<MediaItem> searchAndSelect(ConsoleView view) {
         String query = view.promptString("Enter search query (title/creator or blank for all)", true);
         Query q = new Query(query, query, null);
-        List<MediaItem> results = search(q);
+        Page<MediaItem> page = search(q, null, PAGE_SIZE);
 
-        if (results.isEmpty()) {
-            view.showMessage("No items found.");
-            view.pause();
-            return Optional.empty();
+        if (page.total() == 0) {
+            // Nothing matched exactly; offer close spellings instead
+            page = firstPage(searchFuzzy(q), PAGE_SIZE);
+            if (page.total() == 0) {
+                view.showMessage("No items found.");
+                view.pause();
+                return Optional.empty();
+            }
+            view.showMessage("No exact matches. Showing similar spellings.");
+        } else {
+            view.showMessage(searchFaceted(q).facets().typeSummary());
         }
 
+        int shown = 0;
         while (true) {
-            view.showMessage("\nFound " + results.size() + " items:");
-            for (int i = 0; i < results.size(); i++) {
-                MediaItem item = results.get(i);
-                int available = availableCount(item.getId());
-                view.showMessage((i + 1) + ". " + item.toString() + " | Available: " + available);
+            List<MediaItem> items = page.items();
+            // Resolve availability for the whole page at once
+            Map<UUID, Integer> available = availableCounts(items.stream().map(MediaItem::getId).toList());
+            view.showMessage("\nFound " + page.total() + " items (showing " + (shown + 1) + "-"
+                    + (shown + items.size()) + "):");
+            for (int i = 0; i < items.size(); i++) {
+                MediaItem item = items.get(i);
+                view.showMessage((i + 1) + ". " + item.toString() + " | Available: "
+                        + available.getOrDefault(item.getId(), 0));
             }
 
+            int max = items.size();
+            if (page.hasNext()) {
+                view.showMessage((++max) + ". Next page");
+            }
             view.showMessage("0. Back");
-            int choice = view.promptInt("Select an item (or 0 to cancel)", 0, results.size());
+            int choice = view.promptInt("Select an item (or 0 to cancel)", 0, max);
 
             if (choice == 0) {
                 return Optional.empty();
             }
+            if (choice <= items.size()) {
+                // Return the selected item
+                return Optional.of(items.get(choice - 1));
+            }
 
-            // Return the selected item
-            return Optional.of(results.get(choice - 1));
+            // Fetch the next page from the stored result snapshot
+            shown += items.size();
+            page = search(q, page.nextCursor(), PAGE_SIZE);
         }
     }
 
@@ -107,20 +167,229 @@ public final class CatalogService {
         }
     }
 
+    /**
+     * Adds one labelled physical copy of an existing media title.
+     *
+     * @param mediaId       the ID of the media item
+     * @param shelfLocation where the copy is stored
+     * @param barcode       the copy's barcode label
+     * @return the saved holding
+     * @throws NoSuchElementException   if the media item does not exist
+     * @throws IllegalArgumentException if the barcode is blank or already used
+     */
+    public Holding addCopy(UUID mediaId, String shelfLocation, String barcode) {
+        Validation.nonBlank(barcode, "barcode");
+        MediaItem item = mediaRepo.findById(mediaId)
+                .orElseThrow(() -> new NoSuchElementException("Media item not found: " + mediaId));
+        return invRepo.save(new Holding(item, shelfLocation, barcode));
+    }
+
+    /**
+     * Finds a book by a scanned or typed ISBN.
+     * ISBN-10 and ISBN-13 forms of the same book both find it.
+     *
+     * @param isbn the ISBN, with or without hyphens
+     * @return an Optional containing the book if found
+     */
+    public Optional<Book> findByIsbn(String isbn) {
+        return mediaRepo.findByIsbn(isbn);
+    }
+
+    /**
+     * Finds a physical copy by its scanned barcode.
+     *
+     * @param barcode the barcode label
+     * @return an Optional containing the copy if found
+     */
+    public Optional<Holding> findCopyByBarcode(String barcode) {
+        return invRepo.findByBarcode(barcode);
+    }
+
     /**
      * Searches the catalog for items matching the query.
+     * Results are cached per query; the cache is keyed by the catalog version,
+     * so any save to the catalog invalidates it. Use searchRanked for results
+     * ordered by relevance.
      *
-     * @param q the search criteria
-     * @return list of matching media items
+     * @param q the search criteria (null or empty returns every item)
+     * @return read-only list of matching media items
      */
     public List<MediaItem> search(Query q) {
-        // Return all when query is null or has no criteria
-        if (q == null || (q.title() == null && q.creator() == null && q.year() == null)) {
-            return mediaRepo.findAll();
+        return searchFaceted(q).items();
+    }
+
+    /**
+     * Searches the catalog and counts the matches by media type, category and
+     * decade. The counts are gathered in one pass over the hits and cached
+     * with them; the hit list itself is copied only once, into the result.
+     *
+     * @param q the search criteria (null or empty returns every item)
+     * @return matching items with their facet counts
+     */
+    public SearchResult searchFaceted(Query q) {
+        Query query = q == null ? ALL : q;
+        CacheKey key = new CacheKey(query, mediaRepo.version());
+        SearchResult cached = results.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Text and year criteria are resolved through the repository's indexes;
+        // ranking is left to searchRanked, so a miss costs no more than the lookup.
+        // A blank query collects the store straight into an unmodifiable list,
+        // which SearchResult keeps as is instead of copying it again
+        List<MediaItem> hits = query.hasCriteria()
+                ? mediaRepo.search(query)
+                : mediaRepo.stream().collect(Collectors.toUnmodifiableList());
+        Facets.Counter facets = new Facets.Counter();
+        for (MediaItem item : hits) {
+            facets.add(item);
+        }
+        SearchResult fresh = new SearchResult(hits, facets.build());
+        results.put(key, fresh);
+        return fresh;
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the search result cache.
+     *
+     * @return cache statistics
+     */
+    public LruCache.Stats cacheStats() {
+        return results.stats();
+    }
+
+    /**
+     * Searches the catalog and returns only the most relevant matches.
+     * Hits are scored with BM25 term weighting (title above creator, exact
+     * title matches first) and selected with a bounded heap.
+     *
+     * @param q the search criteria
+     * @param k maximum number of results
+     * @return up to k matching items, most relevant first
+     */
+    public List<MediaItem> searchRanked(Query q, int k) {
+        Validation.require(k > 0, "k must be > 0");
+        return mediaRepo.searchRanked(q, k);
+    }
+
+    /**
+     * Searches the catalog one page at a time.
+     * The first call (null cursor) runs the query (or reuses its cached
+     * result) and keeps the result as a snapshot; the returned cursor resumes
+     * from that snapshot, so later pages never re-run the query and stay stable
+     * even if the catalog changes in between.
+     *
+     * @param q        the search criteria (only used when cursor is null)
+     * @param cursor   the nextCursor of the previous page, or null for the first
+     * @param pageSize maximum number of items per page
+     * @return the requested page
+     * @throws IllegalArgumentException if the cursor is malformed
+     * @throws NoSuchElementException   if the cursor's snapshot has expired
+     */
+    public Page<MediaItem> search(Query q, String cursor, int pageSize) {
+        Validation.require(pageSize > 0, "pageSize must be > 0");
+        if (cursor == null) {
+            return firstPage(search(q), pageSize);
+        }
+        int sep = cursor.lastIndexOf(':');
+        Validation.require(sep > 0, "Invalid cursor: " + cursor);
+        String token = cursor.substring(0, sep);
+        int offset;
+        try {
+            offset = Integer.parseInt(cursor.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        List<MediaItem> results = snapshots.get(token);
+        if (results == null) {
+            throw new NoSuchElementException("Search cursor has expired: " + cursor);
+        }
+        Validation.require(offset >= 0 && offset <= results.size(), "Invalid cursor: " + cursor);
+        return page(results, token, offset, pageSize);
+    }
+
+    // Starts paging over a result list, keeping it as a snapshot if it spans
+    // more than one page
+    private Page<MediaItem> firstPage(List<MediaItem> results, int pageSize) {
+        String token = UUID.randomUUID().toString();
+        if (results.size() > pageSize) {
+            snapshots.put(token, results);
+        }
+        return page(results, token, 0, pageSize);
+    }
+
+    private static Page<MediaItem> page(List<MediaItem> results, String token, int offset, int pageSize) {
+        int end = Math.min(offset + pageSize, results.size());
+        String next = end < results.size() ? token + ":" + end : null;
+        return new Page<>(results.subList(offset, end), next, results.size());
+    }
+
+    /**
+     * Searches the catalog tolerating typos of up to two edits per word
+     * (fewer for short words), e.g. "Andersen" finds "Anderson".
+     *
+     * @param q the search criteria
+     * @return matching items, closest spelling first
+     */
+    public List<MediaItem> searchFuzzy(Query q) {
+        return searchFuzzy(q, MAX_EDITS);
+    }
+
+    /**
+     * Searches the catalog tolerating a given number of typos per word.
+     * Words are looked up in a BK-tree of catalog terms, so the cost grows
+     * with the dictionary neighbourhood of the query rather than the catalog.
+     *
+     * @param q        the search criteria
+     * @param maxEdits maximum edits per word (0 to 2)
+     * @return matching items, closest spelling first
+     */
+    public List<MediaItem> searchFuzzy(Query q, int maxEdits) {
+        Validation.require(maxEdits >= 0 && maxEdits <= MAX_EDITS, "maxEdits must be between 0 and " + MAX_EDITS);
+        return List.copyOf(mediaRepo.searchFuzzy(q, maxEdits));
+    }
+
+    /**
+     * Runs a query in the catalog query language, e.g.
+     * {@code title:river AND creator:williams year:2010..2020 -category:HORROR type:book}.
+     * See {@link QueryParser} for the full syntax.
+     *
+     * @param text the query text
+     * @return matching items, ordered by title, with the plan that ran
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public QueryResult query(String text) {
+        return mediaRepo.query(QueryParser.parse(text));
+    }
+
+    /**
+     * Runs a query-language query and describes how it was evaluated: which
+     * predicate was looked up in an index and how many candidates each
+     * following step left.
+     *
+     * @param text the query text
+     * @return the numbered plan steps, one per line
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public String explain(String text) {
+        return query(text).explain();
+    }
+
+    /**
+     * Suggests completions for a partially typed title or creator name.
+     * Intended for type-ahead; does not run a search.
+     *
+     * @param prefix the text typed so far
+     * @param k      maximum number of suggestions
+     * @return up to k titles or creator names starting with the prefix
+     */
+    public List<String> suggest(String prefix, int k) {
+        Validation.require(k > 0, "k must be > 0");
+        String p = TextNormalizer.normalize(prefix);
+        if (p == null) {
+            return List.of();
         }
-        return mediaRepo.findAll().stream()
-                .filter(m -> m.matches(q))
-                .collect(Collectors.toList());
+        return mediaRepo.suggest(p, k);
     }
 
     /**
@@ -140,9 +409,18 @@ public final class CatalogService {
      * @return count of available copies
      */
     public int availableCount(UUID mediaId) {
-        return (int) invRepo.findByMediaId(mediaId).stream()
-                .filter(h -> h.getStatus() == HoldingStatus.AVAILABLE)
-                .count();
+        return invRepo.countByStatus(mediaId, HoldingStatus.AVAILABLE);
+    }
+
+    /**
+     * Counts available copies for several titles in a single repository pass.
+     * 
+     * @param mediaIds the media item IDs
+     * @return map from each media item ID to its count of available copies
+     */
+    public Map<UUID, Integer> availableCounts(Collection<UUID> mediaIds) {
+        Objects.requireNonNull(mediaIds, "mediaIds");
+        return invRepo.availableCounts(mediaIds);
     }
 
     /**
@@ -2,6 +2,10 @@ package services;
 
 import domain.inventory.*;
 import domain.loan.Loan;
+import domain.loan.LoanEvent;
+import domain.loan.LoanEventListener;
+import domain.loan.LoanRecord;
+import domain.loan.ReturnSummary;
 import domain.user.Member;
 import policies.FinePolicy;
 import policies.LoanRule;
@@ -11,21 +15,55 @@ import util.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for managing loans, returns, and fines.
  * Enforces loan rules and policies.
+ * Checkouts and returns for the same member are serialized by a striped
+ * per-member lock, so the loan limit check and the loan it allows happen
+ * atomically; different members use different stripes and run in parallel.
+ * Each loan schedules its due and overdue events on a timing wheel counted in
+ * epoch days; a return cancels them, and processDueEvents fires whatever the
+ * clock has reached, so no report has to poll every loan. Checkouts and
+ * returns never take the wheel's lock: they only queue the loan, and the
+ * queue is applied to the wheel the next time events are processed or
+ * counted.
  */
 public final class LoanService {
+    // Enough stripes that unrelated members rarely share a lock
+    private static final int MEMBER_LOCK_STRIPES = 64;
+    // Below this many returns, computing fines in parallel costs more than it saves
+    private static final int PARALLEL_FINE_THRESHOLD = 256;
+
+    private final StripedLocks memberLocks = new StripedLocks(MEMBER_LOCK_STRIPES);
     private final InventoryRepository invRepo;
     private final LoanRepository loanRepo;
     private final LoanRule loanRule;
     private final FinePolicy finePolicy;
     private final ClockProvider clock;
+    private final TimingWheel<LoanEvent> dueEvents;
+    // Loans checked out or returned since the wheel was last brought up to date
+    private final Queue<Loan> wheelUpdates = new ConcurrentLinkedQueue<>();
+    // Timers of each loan on the wheel; guarded by the wheel's lock
+    private final Map<UUID, List<TimingWheel.Timer<LoanEvent>>> pendingEvents = new HashMap<>();
+    private final List<LoanEventListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Creates a new LoanService.
@@ -43,53 +81,200 @@ public final class LoanService {
         this.loanRule = Objects.requireNonNull(loanRule, "loanRule");
         this.finePolicy = Objects.requireNonNull(finePolicy, "finePolicy");
         this.clock = Objects.requireNonNull(clock, "clock");
+        this.dueEvents = new TimingWheel<>(clock.today().toEpochDay());
+    }
+
+    /**
+     * Registers a listener for due and overdue events.
+     *
+     * @param listener the listener to notify
+     */
+    public void addLoanEventListener(LoanEventListener listener) {
+        listeners.add(Validation.nonNull(listener, "listener"));
+    }
+
+    /**
+     * Fires every scheduled loan event whose date the clock has reached and
+     * notifies the listeners. Events of loans returned in the meantime are
+     * skipped.
+     *
+     * @return the events fired, earliest first
+     */
+    public List<LoanEvent> processDueEvents() {
+        List<LoanEvent> fired = new ArrayList<>();
+        synchronized (dueEvents) {
+            applyWheelUpdates();
+            for (LoanEvent event : dueEvents.advanceTo(clock.today().toEpochDay())) {
+                if (event.type() == LoanEvent.Type.OVERDUE) {
+                    // Last event of the loan: nothing left to cancel
+                    pendingEvents.remove(event.loan().getId());
+                }
+                if (!event.loan().isReturned()) {
+                    fired.add(event);
+                }
+            }
+        }
+        for (LoanEvent event : fired) {
+            listeners.forEach(l -> l.onLoanEvent(event));
+        }
+        return fired;
+    }
+
+    /**
+     * Gets the number of loan events still waiting for their date.
+     *
+     * @return pending event count
+     */
+    public int pendingEventCount() {
+        synchronized (dueEvents) {
+            applyWheelUpdates();
+            return dueEvents.size();
+        }
+    }
+
+    // Schedules the events of queued loans still out and cancels those of
+    // loans returned since; the caller holds the wheel's lock. A loan may be
+    // queued twice, so both steps are idempotent
+    private void applyWheelUpdates() {
+        for (Loan loan = wheelUpdates.poll(); loan != null; loan = wheelUpdates.poll()) {
+            if (loan.isReturned()) {
+                List<TimingWheel.Timer<LoanEvent>> timers = pendingEvents.remove(loan.getId());
+                if (timers != null) {
+                    timers.forEach(TimingWheel.Timer::cancel);
+                }
+            } else if (!pendingEvents.containsKey(loan.getId())) {
+                LocalDate due = loan.getDueOn();
+                pendingEvents.put(loan.getId(), List.of(
+                        dueEvents.schedule(due.toEpochDay(), new LoanEvent(LoanEvent.Type.DUE, loan, due)),
+                        dueEvents.schedule(due.toEpochDay() + 1,
+                                new LoanEvent(LoanEvent.Type.OVERDUE, loan, due.plusDays(1)))));
+            }
+        }
     }
 
     /**
      * Creates a loan for a specific holding for a member.
-     * Checks eligibility rules before proceeding.
+     * Checks eligibility rules, then claims the copy with an atomic status
+     * transition, so if several desks lend the same copy at once exactly one
+     * succeeds.
      *
      * @param holdingId the specific copy to loan
      * @param member    the borrowing member
      * @return the created Loan object
-     * @throws IllegalArgumentException if validation fails
+     * @throws IllegalArgumentException if validation fails or another loan
+     *                                  claimed the copy first
      */
     public Loan loanCopy(UUID holdingId, Member member) {
         Validation.nonNull(member, "member");
         Holding h = invRepo.findById(holdingId)
                 .orElseThrow(() -> new NoSuchElementException("Holding not found: " + holdingId));
 
-        Validation.require(loanRule.canLoan(member, h), "Loan denied by policy (limit reached, fines, or blocked)");
+        return memberLocks.withLock(member.getId(), () -> {
+            Validation.require(loanRule.canLoan(member, h),
+                    "Loan denied by policy (limit reached, fines, or blocked)");
+            Validation.require(h.tryMarkOnLoan(), "Holding is no longer available: " + holdingId);
+            return recordLoan(h, member);
+        });
+    }
 
-        h.markOnLoan();
-        invRepo.save(h);
+    /**
+     * Lends a batch of copies to a member at once, as at a self-service kiosk.
+     * Eligibility is checked once for the whole batch, then every copy is
+     * claimed; if any copy was taken by another desk meanwhile, the copies
+     * already claimed are released. Either every copy is lent or none is.
+     *
+     * @param member     the borrowing member
+     * @param holdingIds the copies to loan (no duplicates)
+     * @return the created loans, in the order of the ids
+     * @throws IllegalArgumentException if the batch is denied by policy or a
+     *                                  copy is no longer available
+     * @throws NoSuchElementException   if a copy does not exist
+     */
+    public List<Loan> loanCopies(Member member, List<UUID> holdingIds) {
+        Validation.nonNull(member, "member");
+        Validation.require(holdingIds != null && !holdingIds.isEmpty(), "holdingIds must not be empty");
+        Validation.require(new HashSet<>(holdingIds).size() == holdingIds.size(), "holdingIds must not repeat");
+        List<Holding> holdings = new ArrayList<>(holdingIds.size());
+        for (UUID id : holdingIds) {
+            holdings.add(invRepo.findById(id)
+                    .orElseThrow(() -> new NoSuchElementException("Holding not found: " + id)));
+        }
 
-        LocalDate now = clock.today();
-        LocalDate due = loanRule.dueDate(member, h, now);
-        Loan loan = new Loan(h, member, now, due);
-        return loanRepo.save(loan);
+        return memberLocks.withLock(member.getId(), () -> {
+            Validation.require(loanRule.canLoanAll(member, holdings),
+                    "Loan denied by policy (limit reached, fines, or blocked)");
+            for (int i = 0; i < holdings.size(); i++) {
+                if (!holdings.get(i).tryMarkOnLoan()) {
+                    release(holdings.subList(0, i));
+                    throw new IllegalArgumentException("Holding is no longer available: " + holdingIds.get(i));
+                }
+            }
+            return recordLoans(holdings, member);
+        });
+    }
+
+    // Records the loans of copies already claimed by this caller; releases
+    // every copy again if recording fails
+    private List<Loan> recordLoans(List<Holding> holdings, Member member) {
+        try {
+            LocalDate now = clock.today();
+            List<Loan> loans = new ArrayList<>(holdings.size());
+            for (Holding h : holdings) {
+                loans.add(new Loan(h, member, now, loanRule.dueDate(member, h, now)));
+            }
+            holdings.forEach(invRepo::save);
+            loanRepo.saveAll(loans);
+            wheelUpdates.addAll(loans);
+            return loans;
+        } catch (RuntimeException e) {
+            release(holdings);
+            throw e;
+        }
+    }
+
+    private static void release(List<Holding> claimed) {
+        claimed.forEach(Holding::markReturned);
+    }
+
+    // Records the loan of a copy already claimed by this caller; releases the
+    // copy again if recording fails
+    private Loan recordLoan(Holding h, Member member) {
+        try {
+            invRepo.save(h);
+            LocalDate now = clock.today();
+            LocalDate due = loanRule.dueDate(member, h, now);
+            Loan loan = loanRepo.save(new Loan(h, member, now, due));
+            wheelUpdates.add(loan);
+            return loan;
+        } catch (RuntimeException e) {
+            h.markReturned();
+            throw e;
+        }
     }
 
     /**
      * Marks a loan as returned, updates the holding status, and applies any
-     * overdue fine to the member.
+     * overdue fine to the member. Cancels the loan's pending due events.
      *
      * @param loanId the loan identifier
      * @return the fine charged for this loan on return (zero if none)
      */
     public BigDecimal returnCopy(UUID loanId) {
-        Loan loan = loanRepo.findById(loanId)
-                .orElseThrow(() -> new NoSuchElementException("Loan not found: " + loanId));
+        Loan loan = loanRepo.findById(loanId).orElse(null);
+        if (loan == null) {
+            Validation.require(loanRepo.findRecord(loanId).isEmpty(), "Already returned");
+            throw new NoSuchElementException("Loan not found: " + loanId);
+        }
+        return memberLocks.withLock(loan.getBorrower().getId(), () -> returnLocked(loan));
+    }
+
+    private BigDecimal returnLocked(Loan loan) {
         Validation.require(!loan.isReturned(), "Already returned");
-        Holding h = invRepo.findById(loan.getHolding().getId())
+        invRepo.findById(loan.getHolding().getId())
                 .orElseThrow(() -> new IllegalStateException("Holding not found for loan"));
         LocalDate today = clock.today();
-        loan.markReturned(today);
-        h.markReturned();
-        invRepo.save(h);
-        loanRepo.save(loan);
-
         BigDecimal fine = finePolicy.fineFor(loan, today);
+        completeReturn(loan, today, fine);
         if (fine.signum() > 0) {
             loan.getBorrower().addFine(fine);
         }
@@ -97,15 +282,118 @@ public final class LoanService {
     }
 
     /**
-     * Calculates the potential fine for a loan if returned today.
+     * Returns a batch of loans at once, as when emptying the book drop.
+     * Fines are computed in parallel for large batches, then each member's
+     * loans are returned under that member's lock and their fines are summed
+     * and charged once. Unknown or already returned ids, and loans whose copy
+     * cannot be returned (e.g. marked lost), are skipped and reported rather
+     * than failing the batch; members are still charged for the rest.
+     *
+     * @param loanIds the loans to return (duplicates are ignored)
+     * @return a summary of the loans returned, skipped and fined
+     */
+    public ReturnSummary returnCopies(Collection<UUID> loanIds) {
+        Validation.nonNull(loanIds, "loanIds");
+        LocalDate today = clock.today();
+        List<UUID> skipped = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>(loanIds.size());
+        for (UUID id : new LinkedHashSet<>(loanIds)) {
+            Optional<Loan> loan = loanRepo.findById(id);
+            if (loan.isPresent() && !loan.get().isReturned()) {
+                loans.add(loan.get());
+            } else {
+                skipped.add(id);
+            }
+        }
+
+        // Fine policies are stateless, so fines can be computed side by side
+        Stream<Loan> source = loans.size() < PARALLEL_FINE_THRESHOLD ? loans.stream() : loans.parallelStream();
+        Map<UUID, BigDecimal> fines = source.collect(Collectors.toConcurrentMap(
+                Loan::getId, l -> finePolicy.fineFor(l, today)));
+        Map<UUID, List<Loan>> byMember = loans.stream().collect(Collectors.groupingBy(
+                l -> l.getBorrower().getId(), LinkedHashMap::new, Collectors.toList()));
+
+        int returned = 0;
+        Map<UUID, BigDecimal> finesByMember = new HashMap<>();
+        for (Map.Entry<UUID, List<Loan>> group : byMember.entrySet()) {
+            Member member = group.getValue().get(0).getBorrower();
+            returned += memberLocks.withLock(member.getId(), () -> {
+                int count = 0;
+                BigDecimal sum = BigDecimal.ZERO;
+                for (Loan loan : group.getValue()) {
+                    if (loan.isReturned()) {
+                        // Returned at a desk since the batch was read
+                        skipped.add(loan.getId());
+                        continue;
+                    }
+                    BigDecimal fine = fines.get(loan.getId());
+                    try {
+                        completeReturn(loan, today, fine);
+                    } catch (RuntimeException e) {
+                        // e.g. the copy was marked lost while on loan; the loan
+                        // stays open and the rest of the batch carries on
+                        skipped.add(loan.getId());
+                        continue;
+                    }
+                    sum = sum.add(fine);
+                    count++;
+                }
+                if (sum.signum() > 0) {
+                    member.addFine(sum);
+                    finesByMember.put(member.getId(), sum);
+                }
+                return count;
+            });
+        }
+        BigDecimal total = finesByMember.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new ReturnSummary(returned, skipped, finesByMember, total);
+    }
+
+    // Marks a loan and its copy returned, archives it with its fine and
+    // queues the cancelling of its pending events, lifting any overdue hold
+    // the loan put on the member; the caller holds the member's lock.
+    // The copy goes first: if it cannot be returned (e.g. marked lost), the
+    // loan is left untouched and stays active
+    private void completeReturn(Loan loan, LocalDate today, BigDecimal fine) {
+        Holding h = loan.getHolding();
+        h.markReturned();
+        try {
+            loan.markReturned(today);
+        } catch (RuntimeException e) {
+            // Put the copy back on loan so loan and copy stay in step
+            h.tryMarkOnLoan();
+            throw e;
+        }
+        invRepo.save(h);
+        loanRepo.archive(loan, fine);
+        loan.getBorrower().releaseOverdueHold(loan.getId());
+        wheelUpdates.add(loan);
+    }
+
+    /**
+     * Calculates the potential fine for a loan if returned today, or the fine
+     * charged if it has already been returned.
      * 
      * @param loanId the loan ID
      * @return calculated fine amount
      */
     public BigDecimal fine(UUID loanId) {
-        Loan loan = loanRepo.findById(loanId)
+        Optional<Loan> loan = loanRepo.findById(loanId);
+        if (loan.isPresent()) {
+            return finePolicy.fineFor(loan.get(), clock.today());
+        }
+        return loanRepo.findRecord(loanId).map(LoanRecord::fine)
                 .orElseThrow(() -> new NoSuchElementException("Loan not found: " + loanId));
-        return finePolicy.fineFor(loan, clock.today());
+    }
+
+    /**
+     * Lists a member's returned loans, in the order they came back.
+     * 
+     * @param memberId the member ID
+     * @return the member's loan history
+     */
+    public List<LoanRecord> loanHistory(UUID memberId) {
+        return loanRepo.findHistoryByMemberId(memberId);
     }
 
     /**
@@ -127,8 +415,21 @@ public final class LoanService {
         return loanRepo.findOverdue(clock.today());
     }
 
+    /**
+     * Finds active loans falling due from today through the given number of days.
+     * 
+     * @param days how many days ahead to look (0 means due today)
+     * @return list of loans due soon, earliest due first
+     */
+    public List<Loan> loansDueWithin(int days) {
+        Validation.require(days >= 0, "days must be >= 0");
+        LocalDate today = clock.today();
+        return loanRepo.findDueBetween(today, today.plusDays(days));
+    }
+
     /**
      * Convenience method: loans the first available copy of a media item.
+     * If another desk claims the chosen copy first, moves on to the next one.
      *
      * @param mediaId the media title ID
      * @param member  the borrowing member
@@ -137,11 +438,23 @@ public final class LoanService {
      */
     public Loan loanFirstAvailableCopy(UUID mediaId, Member member) {
         Validation.nonNull(member, "member");
-        List<Holding> holdings = invRepo.findByMediaId(mediaId);
-        Holding available = holdings.stream()
-                .filter(h -> h.getStatus() == HoldingStatus.AVAILABLE)
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("No available copies for media: " + mediaId));
-        return loanCopy(available.getId(), member);
+        return memberLocks.withLock(member.getId(), () -> loanFirstAvailableLocked(mediaId, member));
+    }
+
+    private Loan loanFirstAvailableLocked(UUID mediaId, Member member) {
+        while (true) {
+            // Constant-time counter check rejects titles with no copies on the shelf
+            Holding available = invRepo.findFirstByStatus(mediaId, HoldingStatus.AVAILABLE)
+                    .orElseThrow(() -> new NoSuchElementException("No available copies for media: " + mediaId));
+            if (!loanRule.canLoan(member, available)) {
+                if (available.getStatus() != HoldingStatus.AVAILABLE) {
+                    continue; // taken by another desk meanwhile; try the next copy
+                }
+                throw new IllegalArgumentException("Loan denied by policy (limit reached, fines, or blocked)");
+            }
+            if (available.tryMarkOnLoan()) {
+                return recordLoan(available, member);
+            }
+        }
     }
 }
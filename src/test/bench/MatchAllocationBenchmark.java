@@ -0,0 +1,67 @@
+package test.bench;
+
+import domain.Query;
+import domain.media.Book;
+import domain.media.MediaItem;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures how many bytes MediaItem.matches allocates per call.
+ * Uses the HotSpot per-thread allocation counter, so it needs no profiler.
+ * Expected result: 0 bytes per match once the keys are precomputed.
+ */
+public class MatchAllocationBenchmark {
+    private static final int ITEMS = 10_000;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        List<MediaItem> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Book("Título Número " + i, List.of("Beyoncé Knowles", "Author " + i), 1950 + i % 70,
+                    Collections.emptySet(), "ISBN" + i, "Pub"));
+        }
+        Query[] queries = {
+                new Query("numero 42", "beyonce", null),
+                new Query("zzz", "author 9", 1990),
+                Query.byDecade(1980)
+        };
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+
+        // Warm up so the JIT has compiled the kernel before measuring
+        long hits = run(items, queries, ROUNDS);
+
+        long before = threads.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        hits += run(items, queries, ROUNDS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+
+        long calls = (long) ITEMS * queries.length * ROUNDS;
+        System.out.println("MediaItem.matches allocation benchmark");
+        System.out.println("Calls:           " + calls);
+        System.out.printf("Bytes per match: %.4f%n", (double) allocated / calls);
+        System.out.printf("ns per match:    %.2f%n", (double) elapsed / calls);
+        System.out.println("(hits: " + hits + ")");
+    }
+
+    private static long run(List<MediaItem> items, Query[] queries, int rounds) {
+        long hits = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (Query q : queries) {
+                for (int i = 0; i < items.size(); i++) {
+                    if (items.get(i).matches(q)) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+}
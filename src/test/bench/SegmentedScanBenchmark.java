@@ -0,0 +1,57 @@
+package test.bench;
+
+import domain.Query;
+import domain.media.Book;
+import domain.media.MediaItem;
+import repo.inmem.InMemoryMediaRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares a sequential and a parallel segmented scan of the same catalog for
+ * a query the indexes cannot answer (a short title fragment).
+ * Both repositories must return identical results.
+ */
+public class SegmentedScanBenchmark {
+    private static final int ITEMS = 100_000;
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) {
+        InMemoryMediaRepository sequential = new InMemoryMediaRepository(4096, Integer.MAX_VALUE);
+        InMemoryMediaRepository parallel = new InMemoryMediaRepository(4096, 0);
+        for (int i = 0; i < ITEMS; i++) {
+            MediaItem item = new Book("Volume " + i, List.of("Author " + i % 1000), 1900 + i % 120,
+                    Collections.emptySet(), "ISBN" + i, "Pub");
+            sequential.save(item);
+            parallel.save(item);
+        }
+        // Two letters: below the trigram length, so the query needs a scan
+        Query q = Query.byTitle("e ");
+
+        if (!sequential.search(q).equals(parallel.search(q))) {
+            throw new IllegalStateException("Parallel scan differs from sequential scan");
+        }
+        System.out.println("Segmented scan benchmark (" + ITEMS + " items, "
+                + Runtime.getRuntime().availableProcessors() + " cores)");
+        // Warm up both paths so the JIT has compiled the scan before measuring
+        time(sequential, q);
+        time(parallel, q);
+        System.out.printf("Sequential: %.2f ms/query%n", time(sequential, q));
+        System.out.printf("Parallel:   %.2f ms/query%n", time(parallel, q));
+    }
+
+    private static double time(InMemoryMediaRepository repo, Query q) {
+        // Collect the indexing garbage first so it does not land in the timing
+        System.gc();
+        long start = System.nanoTime();
+        long hits = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            hits += repo.search(q).size();
+        }
+        if (hits < 0) {
+            System.out.println(hits);
+        }
+        return (System.nanoTime() - start) / 1e6 / ROUNDS;
+    }
+}
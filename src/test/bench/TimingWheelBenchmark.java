@@ -0,0 +1,46 @@
+package test.bench;
+
+import util.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Schedules a million due-date timers spread over two years, cancels half of
+ * them as returns would, then advances day by day and checks that exactly the
+ * remaining timers fire.
+ */
+public class TimingWheelBenchmark {
+    private static final int TIMERS = 1_000_000;
+    private static final int DAYS = 730;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(0);
+        List<TimingWheel.Timer<Integer>> timers = new ArrayList<>(TIMERS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMERS; i++) {
+            timers.add(wheel.schedule(1 + random.nextInt(DAYS), i));
+        }
+        long scheduled = System.nanoTime();
+        for (int i = 0; i < TIMERS; i += 2) {
+            timers.get(i).cancel();
+        }
+        long cancelled = System.nanoTime();
+        int fired = 0;
+        for (int day = 1; day <= DAYS; day++) {
+            fired += wheel.advanceTo(day).size();
+        }
+        long advanced = System.nanoTime();
+
+        if (fired != TIMERS / 2 || wheel.size() != 0) {
+            throw new IllegalStateException("Expected " + TIMERS / 2 + " timers to fire, got " + fired);
+        }
+        System.out.println("Timing wheel benchmark (" + TIMERS + " timers over " + DAYS + " days)");
+        System.out.printf("Schedule: %.0f ns/timer%n", (scheduled - start) / (double) TIMERS);
+        System.out.printf("Cancel:   %.0f ns/timer%n", (cancelled - scheduled) / (TIMERS / 2.0));
+        System.out.printf("Advance:  %.2f ms/day%n", (advanced - cancelled) / 1e6 / DAYS);
+    }
+}
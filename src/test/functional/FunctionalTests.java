@@ -1,9 +1,24 @@
 package test.functional;
 
+import domain.Category;
+import domain.Facets;
+import domain.Page;
 import domain.Query;
+import domain.inventory.Holding;
+import domain.inventory.HoldingStatus;
 import domain.loan.Loan;
+import domain.loan.LoanEvent;
+import domain.loan.LoanEventListener;
+import domain.loan.LoanRecord;
+import domain.loan.ReturnSummary;
+import domain.query.PlanStep;
+import domain.query.QueryParser;
+import domain.query.QueryResult;
 import domain.media.Book;
+import domain.media.CD;
+import domain.media.DVD;
 import domain.media.MediaItem;
+import domain.user.Librarian;
 import domain.user.Member;
 import policies.FinePolicy;
 import policies.fines.FlatFinePolicy;
@@ -11,17 +26,35 @@ import policies.rules.StandardLoanRule;
 import repo.InventoryRepository;
 import repo.LoanRepository;
 import repo.MediaRepository;
+import repo.UserRepository;
+import repo.concurrent.ConcurrentInventoryRepository;
+import repo.concurrent.ConcurrentLoanRepository;
+import repo.concurrent.ConcurrentMediaRepository;
+import repo.concurrent.ConcurrentUserRepository;
 import repo.inmem.InMemoryInventoryRepository;
 import repo.inmem.InMemoryLoanRepository;
 import repo.inmem.InMemoryMediaRepository;
+import repo.inmem.InMemoryUserRepository;
 import services.CatalogService;
 import services.LoanService;
 import util.ClockProvider;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * Functional tests focused on verifying end-to-end workflows and interactions
@@ -41,6 +74,30 @@ public class FunctionalTests {
         testLoanLimitEnforcement();
         testReturnWorkflowAndFines();
         testInventoryAvailability();
+        testIndexedSearch();
+        testSubstringSearchMatchesScan();
+        testSuggest();
+        testYearRangeSearch();
+        testRankedSearch();
+        testPaginatedSearch();
+        testBatchAvailability();
+        testSearchResultCache();
+        testFuzzySearch();
+        testSearchFacets();
+        testQueryLanguagePlan();
+        testIsbnAndBarcodeLookup();
+        testRepositoryStreams();
+        testConcurrentRepositories();
+        testRaceFreeCheckout();
+        testMemberLoanLimitUnderConcurrency();
+        testDueDateIndex();
+        testDueEventScheduling();
+        testReturnedLoanHistory();
+        testBatchCheckout();
+        testBulkReturns();
+        testFailedReturnKeepsLoanActive();
+        testBulkReturnSkipsLostCopy();
+        testConcurrentDueDateIndex();
         System.out.println("Functional Tests Completed.\n");
     }
 
@@ -255,6 +312,1143 @@ public class FunctionalTests {
         }
     }
 
+    /**
+     * Test Case 6: Indexed Term Search
+     * <p>
+     * Aim: Verify that searches resolved through the term index return the same
+     * items a scan would, and that re-saving a changed title updates the index.
+     * </p>
+     */
+    private static void testIndexedSearch() {
+        System.out.print("6. Test Indexed Term Search: ");
+        try {
+            MediaRepository media = new InMemoryMediaRepository();
+            CatalogService catalog = new CatalogService(media, new InMemoryInventoryRepository());
+            Book river = new Book("The River Runs", List.of("Ann Williams"), 2015, Collections.emptySet(), "1", "P");
+            Book hill = new Book("The Green Hill", List.of("Bob Stone"), 2011, Collections.emptySet(), "2", "P");
+            catalog.addTitle(river, 0);
+            catalog.addTitle(hill, 0);
+
+            // Multi-term title query intersects posting lists
+            List<MediaItem> results = catalog.search(Query.byTitle("river runs"));
+            if (results.size() != 1 || !results.get(0).equals(river))
+                throw new AssertionError("Expected only the river book");
+
+            // Same text for title and creator is OR'ed
+            results = catalog.search(new Query("stone", "stone", null));
+            if (results.size() != 1 || !results.get(0).equals(hill))
+                throw new AssertionError("Expected the creator match");
+
+            // Re-indexing after a title change
+            hill.setTitle("Blue Mountain");
+            media.save(hill);
+            if (!catalog.search(Query.byTitle("green")).isEmpty())
+                throw new AssertionError("Stale term should be removed");
+            if (catalog.search(Query.byTitle("mountain")).size() != 1)
+                throw new AssertionError("New term should be indexed");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 7: Substring Search Semantics
+     * <p>
+     * Aim: Verify that the trigram-backed search returns exactly the items a full
+     * scan with MediaItem.matches returns, including mid-word fragments.
+     * </p>
+     */
+    private static void testSubstringSearchMatchesScan() {
+        System.out.print("7. Test Substring Search Matches Scan: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            catalog.addTitle(new Book("Hidden Bridge", List.of("Mary O'Neil"), 2001, Collections.emptySet(), "1", "P"), 0);
+            catalog.addTitle(new Book("Bridges of Rock-n Roll", List.of("Al Bridgeman"), 1999, Collections.emptySet(), "2", "P"), 0);
+            catalog.addTitle(new Book("The Abridged Atlas", List.of("Ida Gee"), 2010, Collections.emptySet(), "3", "P"), 0);
+
+            String[] texts = { "idge", "hidden bridge", "rock-n roll", "of rock-n", "n bri", "o'neil", "id", "-", "zzz" };
+            for (String text : texts) {
+                Query q = new Query(text, text, null);
+                Set<MediaItem> expected = catalog.findAll().stream().filter(m -> m.matches(q)).collect(Collectors.toSet());
+                Set<MediaItem> actual = new HashSet<>(catalog.search(q));
+                if (!expected.equals(actual))
+                    throw new AssertionError("Mismatch for '" + text + "': " + actual + " vs " + expected);
+            }
+            if (catalog.search(Query.byTitle("idge")).size() != 3)
+                throw new AssertionError("Fragment 'idge' should match all three titles");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 8: Type-ahead Suggestions
+     * <p>
+     * Aim: Verify that CatalogService.suggest completes titles and creator names
+     * from a case-insensitive prefix.
+     * </p>
+     */
+    private static void testSuggest() {
+        System.out.print("8. Test Type-ahead Suggestions: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            catalog.addTitle(new Book("Dune", List.of("Frank Herbert"), 1965, Collections.emptySet(), "1", "P"), 0);
+            catalog.addTitle(new Book("Dune Messiah", List.of("Frank Herbert"), 1969, Collections.emptySet(), "2", "P"), 0);
+
+            List<String> titles = catalog.suggest("  DUNE", 5);
+            if (!titles.equals(List.of("Dune", "Dune Messiah")))
+                throw new AssertionError("Unexpected title suggestions: " + titles);
+            if (!catalog.suggest("fra", 5).equals(List.of("Frank Herbert")))
+                throw new AssertionError("Creator should be suggested once");
+            if (!catalog.suggest(" ", 5).isEmpty())
+                throw new AssertionError("Blank prefix should suggest nothing");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 9: Year Range and Decade Search
+     * <p>
+     * Aim: Verify that year ranges and decades are served by the year index and
+     * combine with text criteria using AND semantics.
+     * </p>
+     */
+    private static void testYearRangeSearch() {
+        System.out.print("9. Test Year Range Search: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            Book b1989 = new Book("River Song", List.of("A"), 1989, Collections.emptySet(), "1", "P");
+            Book b1990 = new Book("River Road", List.of("A"), 1990, Collections.emptySet(), "2", "P");
+            Book b1999 = new Book("Mountain", List.of("A"), 1999, Collections.emptySet(), "3", "P");
+            Book b2000 = new Book("River Bend", List.of("A"), 2000, Collections.emptySet(), "4", "P");
+            for (Book b : List.of(b1989, b1990, b1999, b2000)) {
+                catalog.addTitle(b, 0);
+            }
+
+            if (!new HashSet<>(catalog.search(Query.byDecade(1995))).equals(Set.of(b1990, b1999)))
+                throw new AssertionError("Decade 1990s should match 1990 and 1999");
+            if (!new HashSet<>(catalog.search(Query.byYearRange(1999, null))).equals(Set.of(b1999, b2000)))
+                throw new AssertionError("Open-ended range mismatch");
+            if (!new HashSet<>(catalog.search(Query.byTitle("river").withYears(1989, 1999))).equals(Set.of(b1989, b1990)))
+                throw new AssertionError("Text and range should be AND'ed");
+            if (catalog.search(Query.byYear(1990)).size() != 1)
+                throw new AssertionError("Exact year should still work");
+
+            // Reversed ranges are rejected
+            try {
+                Query.byYearRange(2000, 1990);
+                throw new AssertionError("Expected exception for reversed range");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 10: Relevance-Ranked Top-K Search
+     * <p>
+     * Aim: Verify that ranked search puts an exact title match first, ranks title
+     * matches above creator-only matches, and returns at most K items.
+     * </p>
+     */
+    private static void testRankedSearch() {
+        System.out.print("10. Test Ranked Top-K Search: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            Book creatorOnly = new Book("Stand By Me", List.of("River Phoenix"), 1986, Collections.emptySet(), "1", "P");
+            Book longTitle = new Book("The Long and Winding River Story", List.of("A"), 2001, Collections.emptySet(), "2", "P");
+            Book shortTitle = new Book("River Run", List.of("B"), 2002, Collections.emptySet(), "3", "P");
+            Book exact = new Book("River", List.of("C"), 2003, Collections.emptySet(), "4", "P");
+            for (Book b : List.of(creatorOnly, longTitle, shortTitle, exact)) {
+                catalog.addTitle(b, 0);
+            }
+
+            Query q = new Query("river", "river", null);
+            List<MediaItem> all = catalog.searchRanked(q, 10);
+            if (!all.equals(List.of(exact, shortTitle, longTitle, creatorOnly)))
+                throw new AssertionError("Unexpected ranking: " + all);
+
+            List<MediaItem> top2 = catalog.searchRanked(q, 2);
+            if (!top2.equals(List.of(exact, shortTitle)))
+                throw new AssertionError("Top-2 should be the two best: " + top2);
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 11: Cursor-Based Pagination
+     * <p>
+     * Aim: Verify that following cursors visits every result exactly once in a
+     * stable order, even when the catalog changes between pages, and that bad
+     * cursors are rejected.
+     * </p>
+     */
+    private static void testPaginatedSearch() {
+        System.out.print("11. Test Paginated Search: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            for (int i = 0; i < 25; i++) {
+                catalog.addTitle(new Book("Paged Book " + i, List.of("A"), 2000, Collections.emptySet(), "" + i, "P"), 0);
+            }
+
+            Query q = Query.byTitle("paged");
+            Page<MediaItem> page = catalog.search(q, null, 10);
+            List<MediaItem> seen = new ArrayList<>(page.items());
+            int pages = 1;
+            while (page.hasNext()) {
+                // Catalog changes must not shift the snapshot being paged
+                catalog.addTitle(new Book("Paged Late " + pages, List.of("A"), 2000, Collections.emptySet(), "x", "P"), 0);
+                page = catalog.search(q, page.nextCursor(), 10);
+                seen.addAll(page.items());
+                pages++;
+            }
+            if (pages != 3 || page.total() != 25)
+                throw new AssertionError("Expected 3 pages of 25 results, got " + pages + "/" + page.total());
+            if (new HashSet<>(seen).size() != 25)
+                throw new AssertionError("Every result should appear exactly once");
+
+            try {
+                catalog.search(q, "no-such-snapshot:10", 10);
+                throw new AssertionError("Expected expired cursor to be rejected");
+            } catch (NoSuchElementException e) {
+                // Expected
+            }
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 12: Batch Availability Lookup
+     * <p>
+     * Aim: Verify that availableCounts resolves a whole page of titles at once
+     * and agrees with the per-title count after a loan.
+     * </p>
+     */
+    private static void testBatchAvailability() {
+        System.out.print("12. Test Batch Availability: ");
+        try {
+            var ctx = setupContext();
+            Book b1 = new Book("Batch One", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            Book b2 = new Book("Batch Two", List.of("A"), 2020, Collections.emptySet(), "2", "P");
+            ctx.catalog.addTitle(b1, 3);
+            ctx.catalog.addTitle(b2, 1);
+            ctx.loanService.loanFirstAvailableCopy(b1.getId(), new Member("B", "U", "b@u.com", "p"));
+
+            UUID unknown = UUID.randomUUID();
+            Map<UUID, Integer> counts = ctx.catalog.availableCounts(List.of(b1.getId(), b2.getId(), unknown));
+            if (counts.get(b1.getId()) != 2 || counts.get(b2.getId()) != 1 || counts.get(unknown) != 0)
+                throw new AssertionError("Unexpected counts: " + counts);
+            if (ctx.catalog.availableCount(b1.getId()) != 2)
+                throw new AssertionError("Single lookup should agree with batch");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 13: Versioned Search Result Cache
+     * <p>
+     * Aim: Verify that a repeated query is served from the cache and that
+     * adding a title invalidates cached results.
+     * </p>
+     */
+    private static void testSearchResultCache() {
+        System.out.print("13. Test Search Result Cache: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            catalog.addTitle(new Book("Cached Tales", List.of("A"), 2001, Collections.emptySet(), "1", "P"), 1);
+
+            List<MediaItem> first = catalog.search(Query.byTitle("cached"));
+            List<MediaItem> second = catalog.search(Query.byTitle("Cached"));
+            if (first != second)
+                throw new AssertionError("Equal queries should share the cached result");
+            if (catalog.cacheStats().hits() != 1 || catalog.cacheStats().misses() != 1)
+                throw new AssertionError("Unexpected stats: " + catalog.cacheStats());
+
+            catalog.addTitle(new Book("Cached Again", List.of("B"), 2002, Collections.emptySet(), "2", "P"), 1);
+            if (catalog.search(Query.byTitle("cached")).size() != 2)
+                throw new AssertionError("Adding a title should invalidate cached results");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 14: Typo-Tolerant Fuzzy Search
+     * <p>
+     * Aim: Verify that misspelt creator and title words find the intended items,
+     * closest spelling first, while the year filter still applies.
+     * </p>
+     */
+    private static void testFuzzySearch() {
+        System.out.print("14. Test Fuzzy Search: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            Book anderson = new Book("Winter Stories", List.of("Poul Anderson"), 1970, Collections.emptySet(), "1", "P");
+            Book andersen = new Book("Fairy Tales", List.of("Hans Christian Andersen"), 1835, Collections.emptySet(), "2", "P");
+            catalog.addTitle(anderson, 1);
+            catalog.addTitle(andersen, 1);
+
+            if (!catalog.search(Query.byCreator("Andersen")).equals(List.of(andersen)))
+                throw new AssertionError("Exact search should only find Andersen");
+            List<MediaItem> fuzzy = catalog.searchFuzzy(Query.byCreator("Andersen"));
+            if (!fuzzy.equals(List.of(andersen, anderson)))
+                throw new AssertionError("Fuzzy search should rank the exact spelling first: " + fuzzy);
+            if (!catalog.searchFuzzy(Query.byTitle("fairytales tails")).isEmpty())
+                throw new AssertionError("Every word must match within the edit bound");
+            if (!catalog.searchFuzzy(Query.byTitle("wintr storys")).equals(List.of(anderson)))
+                throw new AssertionError("Misspelt title words should match");
+            if (!catalog.searchFuzzy(new Query(null, "andersn", 1800, 1900)).equals(List.of(andersen)))
+                throw new AssertionError("Year filter should apply to fuzzy results");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 15: Faceted Search Counts
+     * <p>
+     * Aim: Verify that a search returns counts per media type, category and
+     * decade for exactly the matching items.
+     * </p>
+     */
+    private static void testSearchFacets() {
+        System.out.print("15. Test Search Facets: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            catalog.addTitle(new Book("Night Music", List.of("A"), 1994, Set.of(Category.FICTION, Category.MUSIC), "1", "P"), 1);
+            catalog.addTitle(new Book("Night Train", List.of("B"), 2003, Set.of(Category.FICTION), "2", "P"), 1);
+            catalog.addTitle(new CD("Night Songs", List.of("C"), 1998, Set.of(Category.MUSIC), 40, 10), 1);
+            catalog.addTitle(new DVD("Night Film", List.of("D"), 2001, Set.of(Category.DRAMA), 90, "2", "PG"), 1);
+            catalog.addTitle(new DVD("Day Film", List.of("E"), 2001, Set.of(Category.DRAMA), 90, "2", "PG"), 1);
+
+            var result = catalog.searchFaceted(Query.byTitle("night"));
+            Facets f = result.facets();
+            if (result.items().size() != 4)
+                throw new AssertionError("Expected 4 matches");
+            if (!f.types().equals(Map.of("Book", 2, "CD", 1, "DVD", 1)))
+                throw new AssertionError("Unexpected type counts: " + f.types());
+            if (!f.categories().equals(Map.of(Category.FICTION, 2, Category.MUSIC, 2, Category.DRAMA, 1)))
+                throw new AssertionError("Unexpected category counts: " + f.categories());
+            if (!f.decades().equals(Map.of(1990, 2, 2000, 2)))
+                throw new AssertionError("Unexpected decade counts: " + f.decades());
+            if (!f.typeSummary().equals("Book (2) / CD (1) / DVD (1)"))
+                throw new AssertionError("Unexpected summary: " + f.typeSummary());
+            if (!f.equals(Facets.of(result.items())))
+                throw new AssertionError("Facets should match a recount of the items");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 16: Query Language with Cost-Based Plan
+     * <p>
+     * Aim: Verify that a boolean query returns the same items as evaluating it
+     * against every title, that the plan starts from the most selective
+     * indexed predicate, and that unindexable queries fall back to a scan.
+     * </p>
+     */
+    private static void testQueryLanguagePlan() {
+        System.out.print("16. Test Query Language Plan: ");
+        try {
+            CatalogService catalog = setupCatalog();
+            for (int i = 0; i < 60; i++) {
+                Set<Category> cats = i % 3 == 0 ? Set.of(Category.HORROR) : Set.of(Category.FICTION);
+                String creator = i % 2 == 0 ? "Tennessee Williams" : "Ann Other";
+                catalog.addTitle(new Book("River Tale " + i, List.of(creator), 1990 + i % 40, cats, "i" + i, "P"), 0);
+            }
+            catalog.addTitle(new CD("River Songs", List.of("Hank Williams"), 2015, Set.of(Category.FOLK), 40, 10), 0);
+
+            String text = "title:river AND creator:williams year:2010..2020 -category:HORROR type:book";
+            QueryResult result = catalog.query(text);
+            var expr = QueryParser.parse(text);
+            List<MediaItem> expected = catalog.findAll().stream().filter(expr::test)
+                    .sorted(Comparator.comparing(MediaItem::getTitleKey)).toList();
+            if (result.items().isEmpty() || !result.items().equals(expected))
+                throw new AssertionError("Plan result differs from a full evaluation");
+
+            // The 11-year range is the most selective indexed predicate
+            List<PlanStep> plan = result.plan();
+            if (!plan.get(0).operation().equals("index") || !plan.get(0).predicate().equals("year:2010..2020"))
+                throw new AssertionError("Unexpected driver: " + result.explain());
+            for (int i = 1; i < plan.size(); i++) {
+                if (plan.get(i).rows() > plan.get(i - 1).rows())
+                    throw new AssertionError("Candidate counts should only shrink: " + result.explain());
+            }
+            if (plan.get(plan.size() - 1).rows() != result.items().size())
+                throw new AssertionError("Last step should report the result size");
+
+            QueryResult scan = catalog.query("-type:cd");
+            if (!scan.plan().get(0).operation().equals("scan") || scan.items().size() != 60)
+                throw new AssertionError("Negation alone should scan: " + scan.explain());
+            if (!catalog.explain("type:cd").startsWith("1. index"))
+                throw new AssertionError("Explain should list the plan");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 17: ISBN and Barcode Desk Lookups
+     * <p>
+     * Aim: Verify that a book is found by its ISBN-10 or ISBN-13 in any
+     * formatting, that a re-saved ISBN change is followed, and that copies are
+     * found by barcode with duplicates rejected.
+     * </p>
+     */
+    private static void testIsbnAndBarcodeLookup() {
+        System.out.print("17. Test ISBN and Barcode Lookup: ");
+        try {
+            var ctx = setupContext();
+            Book book = new Book("Lookup", List.of("A"), 2001, Collections.emptySet(), "978-0-306-40615-7", "P");
+            ctx.catalog.addTitle(book, 0);
+
+            for (String scan : List.of("9780306406157", "0-306-40615-2", "isbn 0306406152", " 978 0306 40615 7 ")) {
+                if (ctx.catalog.findByIsbn(scan).orElse(null) != book)
+                    throw new AssertionError("Should find book by " + scan);
+            }
+            if (ctx.catalog.findByIsbn("9780306406158").isPresent())
+                throw new AssertionError("Different ISBN should not match");
+
+            // The index follows ISBN changes on save
+            book.setIsbn("1-234-56789-X");
+            ctx.catalog.addTitle(book, 0);
+            if (ctx.catalog.findByIsbn("9780306406157").isPresent()
+                    || ctx.catalog.findByIsbn("978-1-234-56789-7").orElse(null) != book)
+                throw new AssertionError("Index should follow the new ISBN");
+
+            var copy = ctx.catalog.addCopy(book.getId(), "Shelf 1", "lib-0001");
+            if (ctx.catalog.findCopyByBarcode(" LIB-0001").orElse(null) != copy)
+                throw new AssertionError("Should find copy by barcode");
+            try {
+                ctx.catalog.addCopy(book.getId(), "Shelf 2", "LIB-0001");
+                throw new AssertionError("Duplicate barcode should be rejected");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+            if (ctx.catalog.copiesOf(book.getId()).size() != 1)
+                throw new AssertionError("Rejected copy must not be stored");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 18: Lazy Repository Streams
+     * <p>
+     * Aim: Verify that repository streams agree with the list-based APIs, push
+     * the query down to the indexes, scan in parallel past the threshold, only
+     * cover items present when created and filter users by type.
+     * </p>
+     */
+    private static void testRepositoryStreams() {
+        System.out.print("18. Test Repository Streams: ");
+        try {
+            MediaRepository media = new InMemoryMediaRepository(4, 0);
+            for (int i = 0; i < 20; i++) {
+                media.save(new Book("Stream " + (i % 2 == 0 ? "Even " : "Odd ") + i, List.of("A"), 2000 + i,
+                        Collections.emptySet(), "s" + i, "P"));
+            }
+            if (!media.stream().toList().equals(media.findAll()))
+                throw new AssertionError("stream() should match findAll()");
+            Query q = new Query("even", null, 2005, 2015);
+            if (!new HashSet<>(media.stream(q).toList()).equals(new HashSet<>(media.search(q))))
+                throw new AssertionError("stream(q) should match search(q)");
+            if (!media.stream(Query.byTitle("odd")).findFirst().isPresent())
+                throw new AssertionError("findFirst should find a match");
+
+            // Threshold 0 sends every scan of the concurrent store down the parallel path
+            MediaRepository parallel = new ConcurrentMediaRepository(0);
+            media.stream().forEach(parallel::save);
+            Query shortText = Query.byTitle("en");
+            if (!new HashSet<>(parallel.search(shortText)).equals(new HashSet<>(media.search(shortText)))
+                    || parallel.stream(shortText).count() != media.search(shortText).size())
+                throw new AssertionError("Parallel scans should match the sequential ones");
+
+            var view = media.stream();
+            media.save(new Book("Late", List.of("B"), 2020, Collections.emptySet(), "late", "P"));
+            if (view.count() != 20)
+                throw new AssertionError("Stream should only cover items present when created");
+
+            UserRepository users = new InMemoryUserRepository();
+            users.save(new Member("M", "One", "m1@test.com", "pass"));
+            users.save(new Member("M", "Two", "m2@test.com", "pass"));
+            users.save(new Librarian("L", "One", "l1@test.com", "pass"));
+            if (users.stream(Member.class).count() != 2 || users.stream().count() != 3)
+                throw new AssertionError("Typed user stream should keep members only");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 19: Concurrent Repositories Under Contention
+     * <p>
+     * Aim: Verify that the repo.concurrent implementations keep their indexes
+     * consistent with the primary store while several threads save, search and
+     * scan at the same time.
+     * </p>
+     */
+    private static void testConcurrentRepositories() {
+        System.out.print("19. Test Concurrent Repositories: ");
+        try {
+            MediaRepository media = new ConcurrentMediaRepository();
+            InventoryRepository inv = new ConcurrentInventoryRepository();
+            UserRepository users = new ConcurrentUserRepository();
+            CatalogService catalog = new CatalogService(media, inv);
+            int threads = 8;
+            int perThread = 200;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Book b = new Book("Shared Title " + id + "-" + i, List.of("Writer " + id), 2000 + i % 20,
+                                Collections.emptySet(), "c" + id + "-" + i, "P");
+                        catalog.addTitle(b, 1);
+                        // Every thread tries the same barcode; only one may win
+                        try {
+                            catalog.addCopy(b.getId(), "", "DUP-" + i);
+                        } catch (IllegalArgumentException expected) {
+                            // another thread owns this barcode
+                        }
+                        users.save(new Member("U", "" + id, "u" + id + "-" + i + "@test.com", "p"));
+                        // Concurrent readers while writers are active
+                        media.search(Query.byCreator("writer " + id));
+                        media.query(QueryParser.parse("title:shared year:2005..2010"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : tasks) {
+                f.get();
+            }
+            pool.shutdown();
+
+            int total = threads * perThread;
+            if (media.findAll().size() != total || media.search(Query.byTitle("shared title")).size() != total)
+                throw new AssertionError("Index out of step with store");
+            for (int t = 0; t < threads; t++) {
+                if (catalog.search(Query.byCreator("writer " + t)).size() != perThread)
+                    throw new AssertionError("Missing titles for writer " + t);
+            }
+            int claimed = 0;
+            for (int i = 0; i < perThread; i++) {
+                if (inv.findByBarcode("dup-" + i).isPresent())
+                    claimed++;
+            }
+            long copies = media.stream().mapToInt(m -> inv.findByMediaId(m.getId()).size()).sum();
+            if (claimed != perThread || copies != total + perThread)
+                throw new AssertionError("Each barcode should be claimed exactly once");
+            if (users.stream().count() != total || !users.existsByEmail("U7-199@TEST.COM"))
+                throw new AssertionError("User index out of step with store");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 20: Race-Free Checkout
+     * <p>
+     * Aim: Verify that when many desks lend the same copy, or the last copies
+     * of a title, at the same moment, each copy is lent exactly once and the
+     * status counters stay exact.
+     * </p>
+     */
+    private static void testRaceFreeCheckout() {
+        System.out.print("20. Test Race-Free Checkout: ");
+        try {
+            InventoryRepository inv = new ConcurrentInventoryRepository();
+            LoanRepository loans = new ConcurrentLoanRepository();
+            CatalogService catalog = new CatalogService(new ConcurrentMediaRepository(), inv);
+            LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                    new FlatFinePolicy(new BigDecimal("0.50"), 0), ClockProvider.system());
+            Book single = new Book("Single Copy", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            Book three = new Book("Three Copies", List.of("A"), 2020, Collections.emptySet(), "2", "P");
+            catalog.addTitle(single, 1);
+            catalog.addTitle(three, 3);
+            UUID copy = catalog.copiesOf(single.getId()).get(0).getId();
+
+            int desks = 16;
+            ExecutorService pool = Executors.newFixedThreadPool(desks);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int d = 0; d < desks; d++) {
+                Member m = new Member("Desk", "" + d, "desk" + d + "@test.com", "p");
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int won = 0;
+                    try {
+                        ls.loanCopy(copy, m);
+                        won++;
+                    } catch (IllegalArgumentException lost) {
+                        // another desk got the copy
+                    }
+                    try {
+                        ls.loanFirstAvailableCopy(three.getId(), m);
+                        won += 10;
+                    } catch (NoSuchElementException none) {
+                        // all copies gone
+                    }
+                    return won;
+                }));
+            }
+            start.countDown();
+            int singleWins = 0;
+            int threeWins = 0;
+            for (Future<Integer> f : results) {
+                int won = f.get();
+                singleWins += won % 10;
+                threeWins += won / 10;
+            }
+            pool.shutdown();
+
+            if (singleWins != 1 || threeWins != 3)
+                throw new AssertionError("Expected 1 and 3 loans, got " + singleWins + " and " + threeWins);
+            if (catalog.availableCount(single.getId()) != 0 || catalog.availableCount(three.getId()) != 0
+                    || inv.countByStatus(three.getId(), HoldingStatus.ON_LOAN) != 3)
+                throw new AssertionError("Status counters drifted");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 21: Loan Limit Under Concurrent Checkouts
+     * <p>
+     * Aim: Verify that concurrent checkouts of different copies for the same
+     * member never exceed the member's loan limit, while other members are
+     * served at the same time.
+     * </p>
+     */
+    private static void testMemberLoanLimitUnderConcurrency() {
+        System.out.print("21. Test Loan Limit Under Concurrency: ");
+        try {
+            InventoryRepository inv = new ConcurrentInventoryRepository();
+            LoanRepository loans = new ConcurrentLoanRepository();
+            CatalogService catalog = new CatalogService(new ConcurrentMediaRepository(), inv);
+            LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                    new FlatFinePolicy(new BigDecimal("0.50"), 0), ClockProvider.system());
+            Book b = new Book("Popular", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            catalog.addTitle(b, 40);
+            List<UUID> copies = catalog.copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+            Member limited = new Member("Lim", "Ited", "lim@test.com", "p", 2, LocalDate.now().plusYears(1));
+            Member other = new Member("Oth", "Er", "oth@test.com", "p", 20, LocalDate.now().plusYears(1));
+
+            int threads = 20;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                UUID mine = copies.get(t);
+                UUID theirs = copies.get(threads + t);
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        ls.loanCopy(mine, limited);
+                    } catch (IllegalArgumentException denied) {
+                        // limit reached
+                    }
+                    ls.loanCopy(theirs, other);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : tasks) {
+                f.get();
+            }
+            pool.shutdown();
+
+            if (ls.activeLoans(limited.getId()).size() != 2)
+                throw new AssertionError("Limit exceeded: " + ls.activeLoans(limited.getId()).size() + " loans");
+            if (ls.activeLoans(other.getId()).size() != threads)
+                throw new AssertionError("Other member should get every loan");
+            if (catalog.availableCount(b.getId()) != 40 - threads - 2)
+                throw new AssertionError("Denied checkouts must not take copies");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 22: Overdue and Due-Soon Reports
+     * <p>
+     * Aim: Verify that overdue and due-soon loans come from the due-date
+     * index in due order, and that a returned loan drops out of both reports
+     * in either loan repository.
+     * </p>
+     */
+    private static void testDueDateIndex() {
+        System.out.print("22. Test Overdue and Due-Soon Reports: ");
+        try {
+            for (LoanRepository loans : List.of(new InMemoryLoanRepository(), new ConcurrentLoanRepository())) {
+                InventoryRepository inv = new InMemoryInventoryRepository();
+                CatalogService catalog = new CatalogService(new InMemoryMediaRepository(), inv);
+                LocalDate start = LocalDate.now();
+                LocalDate[] today = { start };
+                LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                        new FlatFinePolicy(new BigDecimal("0.50"), 0), () -> today[0]);
+                Book b = new Book("Due", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+                catalog.addTitle(b, 3);
+                List<UUID> copies = catalog.copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+                Member m = new Member("Due", "Soon", "due@test.com", "p", 5, start.plusYears(1));
+
+                Loan first = ls.loanCopy(copies.get(0), m); // due day 7
+                today[0] = start.plusDays(2);
+                Loan second = ls.loanCopy(copies.get(1), m); // due day 9
+                today[0] = start.plusDays(4);
+                Loan third = ls.loanCopy(copies.get(2), m); // due day 11
+
+                today[0] = start.plusDays(10);
+                if (!ls.overdueLoans().equals(List.of(first, second)))
+                    throw new AssertionError("Overdue should list the first two loans in due order");
+                if (!ls.loansDueWithin(1).equals(List.of(third)))
+                    throw new AssertionError("Third loan should be due within a day");
+                if (!ls.loansDueWithin(0).isEmpty())
+                    throw new AssertionError("Nothing is due today");
+
+                ls.returnCopy(second.getId());
+                if (!ls.overdueLoans().equals(List.of(first)))
+                    throw new AssertionError("Returned loan should leave the overdue report");
+                if (!loans.findDueBetween(start, start.plusDays(30)).equals(List.of(first, third)))
+                    throw new AssertionError("Returned loan should leave the due-date index");
+                if (!loans.findDueBetween(start.plusDays(30), start).isEmpty())
+                    throw new AssertionError("An inverted range should be empty");
+            }
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 23: Scheduled Due and Overdue Events
+     * <p>
+     * Aim: Using a clock that is moved forward by hand, verify that each loan
+     * raises a due event on its due date and an overdue event the day after,
+     * that the default listener holds the borrower until the loan is returned
+     * without lifting a librarian's block, and that returning a loan cancels
+     * its pending events.
+     * </p>
+     */
+    private static void testDueEventScheduling() {
+        System.out.print("23. Test Scheduled Due Events: ");
+        try {
+            LoanRepository loans = new InMemoryLoanRepository();
+            InventoryRepository inv = new InMemoryInventoryRepository();
+            CatalogService catalog = new CatalogService(new InMemoryMediaRepository(), inv);
+            LocalDate start = LocalDate.now();
+            LocalDate[] today = { start };
+            LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                    new FlatFinePolicy(new BigDecimal("0.50"), 0), () -> today[0]);
+            List<LoanEvent> heard = new ArrayList<>();
+            ls.addLoanEventListener(heard::add);
+            ls.addLoanEventListener(LoanEventListener.blockOnOverdue());
+
+            Book b = new Book("Wheel", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            catalog.addTitle(b, 2);
+            List<UUID> copies = catalog.copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+            Member late = new Member("La", "Te", "late@test.com", "p", 5, start.plusYears(1));
+            Member prompt = new Member("Pro", "Mpt", "prompt@test.com", "p", 5, start.plusYears(1));
+            Loan kept = ls.loanCopy(copies.get(0), late);
+            Loan returned = ls.loanCopy(copies.get(1), prompt);
+            if (ls.pendingEventCount() != 4)
+                throw new AssertionError("Each loan should schedule two events");
+
+            today[0] = start.plusDays(3);
+            ls.returnCopy(returned.getId());
+            if (ls.pendingEventCount() != 2)
+                throw new AssertionError("Return should cancel the loan's events");
+
+            today[0] = start.plusDays(6);
+            if (!ls.processDueEvents().isEmpty())
+                throw new AssertionError("Nothing is due yet");
+            today[0] = start.plusDays(7);
+            List<LoanEvent> due = ls.processDueEvents();
+            if (due.size() != 1 || due.get(0).type() != LoanEvent.Type.DUE || due.get(0).loan() != kept)
+                throw new AssertionError("Expected a due reminder on the due date");
+            if (late.isBlocked())
+                throw new AssertionError("Member should not be blocked on the due date");
+
+            today[0] = start.plusDays(30);
+            List<LoanEvent> overdue = ls.processDueEvents();
+            if (overdue.size() != 1 || overdue.get(0).type() != LoanEvent.Type.OVERDUE
+                    || !overdue.get(0).date().equals(start.plusDays(8)))
+                throw new AssertionError("Expected one overdue event dated the day after due");
+            if (!late.isBlocked() || prompt.isBlocked())
+                throw new AssertionError("Only the late member should be blocked");
+            if (heard.size() != 2 || ls.pendingEventCount() != 0)
+                throw new AssertionError("Listener should hear each event once");
+
+            ls.returnCopy(kept.getId());
+            if (late.isBlocked() || late.isOnOverdueHold())
+                throw new AssertionError("Returning the overdue loan should lift the hold");
+            Loan again = ls.loanCopy(copies.get(1), prompt);
+            prompt.block();
+            today[0] = start.plusDays(60);
+            ls.processDueEvents();
+            if (!prompt.isOnOverdueHold())
+                throw new AssertionError("A blocked member should still be held for an overdue loan");
+            ls.returnCopy(again.getId());
+            if (!prompt.isBlocked() || prompt.isOnOverdueHold())
+                throw new AssertionError("A librarian's block should outlast the hold");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 24: Returned Loan History
+     * <p>
+     * Aim: Verify that a returned loan leaves the active loans for the member's
+     * history with the fine charged, that its fine can still be queried, and
+     * that returning it again is rejected, in either loan repository.
+     * </p>
+     */
+    private static void testReturnedLoanHistory() {
+        System.out.print("24. Test Returned Loan History: ");
+        try {
+            for (LoanRepository loans : List.of(new InMemoryLoanRepository(), new ConcurrentLoanRepository())) {
+                InventoryRepository inv = new InMemoryInventoryRepository();
+                CatalogService catalog = new CatalogService(new InMemoryMediaRepository(), inv);
+                LocalDate start = LocalDate.of(2023, 1, 1);
+                LocalDate[] today = { start };
+                LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                        new FlatFinePolicy(new BigDecimal("1.00"), 0), () -> today[0]);
+                Book b = new Book("History", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+                catalog.addTitle(b, 2);
+                Member m = new Member("His", "Tory", "history@test.com", "pass");
+
+                Loan onTime = ls.loanFirstAvailableCopy(b.getId(), m);
+                Loan late = ls.loanFirstAvailableCopy(b.getId(), m);
+                today[0] = start.plusDays(3);
+                ls.returnCopy(onTime.getId());
+                today[0] = start.plusDays(10);
+                ls.returnCopy(late.getId());
+
+                List<LoanRecord> history = ls.loanHistory(m.getId());
+                if (history.size() != 2 || !history.get(0).loanId().equals(onTime.getId())
+                        || !history.get(1).loanId().equals(late.getId()))
+                    throw new AssertionError("History should list both loans in return order");
+                if (history.get(1).fine().compareTo(new BigDecimal("3.00")) != 0
+                        || ls.fine(late.getId()).compareTo(new BigDecimal("3.00")) != 0)
+                    throw new AssertionError("History should keep the fine charged");
+                if (!ls.activeLoans(m.getId()).isEmpty() || loans.findById(late.getId()).isPresent())
+                    throw new AssertionError("Returned loans should leave the active store");
+                boolean rejected = false;
+                try {
+                    ls.returnCopy(late.getId());
+                } catch (IllegalArgumentException expected) {
+                    rejected = true;
+                }
+                if (!rejected)
+                    throw new AssertionError("Returning twice should be rejected");
+            }
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 25: Atomic Batch Checkout
+     * <p>
+     * Aim: Verify that a kiosk batch is lent in full when eligible, and that a
+     * batch over the member's limit or containing a copy already on loan lends
+     * nothing and leaves every copy on the shelf.
+     * </p>
+     */
+    private static void testBatchCheckout() {
+        System.out.print("25. Test Atomic Batch Checkout: ");
+        try {
+            var ctx = setupContext();
+            Book b = new Book("Stack", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            ctx.catalog().addTitle(b, 8);
+            List<UUID> copies = ctx.catalog().copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+            Member m = new Member("Kio", "Sk", "kiosk@test.com", "p", 5, LocalDate.now().plusYears(1));
+            Member other = new Member("Oth", "Er", "other@test.com", "p", 5, LocalDate.now().plusYears(1));
+
+            List<Loan> lent = ctx.loanService().loanCopies(m, copies.subList(0, 3));
+            if (lent.size() != 3 || !lent.get(2).getHolding().getId().equals(copies.get(2)))
+                throw new AssertionError("Batch should lend every copy in order");
+            if (ctx.loanService().activeLoans(m.getId()).size() != 3 || ctx.catalog().availableCount(b.getId()) != 5)
+                throw new AssertionError("Batch loans should be recorded");
+
+            boolean denied = false;
+            try {
+                ctx.loanService().loanCopies(m, copies.subList(3, 6));
+            } catch (IllegalArgumentException expected) {
+                denied = true;
+            }
+            if (!denied || ctx.loanService().activeLoans(m.getId()).size() != 3)
+                throw new AssertionError("Batch over the limit should lend nothing");
+
+            boolean conflict = false;
+            try {
+                ctx.loanService().loanCopies(other, List.of(copies.get(3), copies.get(4), copies.get(0)));
+            } catch (IllegalArgumentException expected) {
+                conflict = true;
+            }
+            if (!conflict || !ctx.loanService().activeLoans(other.getId()).isEmpty()
+                    || ctx.catalog().availableCount(b.getId()) != 5)
+                throw new AssertionError("Batch with a lent copy should release every claim");
+
+            boolean repeated = false;
+            try {
+                ctx.loanService().loanCopies(other, List.of(copies.get(5), copies.get(5)));
+            } catch (IllegalArgumentException expected) {
+                repeated = true;
+            }
+            if (!repeated)
+                throw new AssertionError("Repeated copies should be rejected");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 26: Bulk Drop-Box Returns
+     * <p>
+     * Aim: Return a thousand loans of a hundred members in one batch, three
+     * days late, and verify that each member is charged the sum of their
+     * fines once, every copy is back on the shelf, and unknown or already
+     * returned ids are reported as skipped.
+     * </p>
+     */
+    private static void testBulkReturns() {
+        System.out.print("26. Test Bulk Drop-Box Returns: ");
+        try {
+            LoanRepository loans = new ConcurrentLoanRepository();
+            InventoryRepository inv = new ConcurrentInventoryRepository();
+            CatalogService catalog = new CatalogService(new ConcurrentMediaRepository(), inv);
+            LocalDate start = LocalDate.now();
+            LocalDate[] today = { start };
+            LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                    new FlatFinePolicy(new BigDecimal("0.25"), 0), () -> today[0]);
+            Book b = new Book("Drop", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            catalog.addTitle(b, 1000);
+            List<UUID> copies = catalog.copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+
+            List<Member> members = new ArrayList<>();
+            List<UUID> loanIds = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Member m = new Member("Drop", "User" + i, "drop" + i + "@test.com", "p", 10, start.plusYears(1));
+                members.add(m);
+                ls.loanCopies(m, copies.subList(i * 10, i * 10 + 10)).forEach(l -> loanIds.add(l.getId()));
+            }
+            UUID early = loanIds.get(0);
+            ls.returnCopy(early);
+
+            today[0] = start.plusDays(10);
+            List<UUID> batch = new ArrayList<>(loanIds);
+            batch.add(loanIds.get(5)); // scanned twice
+            UUID unknown = UUID.randomUUID();
+            batch.add(unknown);
+            ReturnSummary summary = ls.returnCopies(batch);
+
+            if (summary.returned() != 999 || !summary.skipped().equals(List.of(early, unknown)))
+                throw new AssertionError("Expected 999 returns, got " + summary.returned() + " skipped " + summary.skipped());
+            if (summary.finesByMember().size() != 100
+                    || summary.finesByMember().get(members.get(1).getId()).compareTo(new BigDecimal("7.50")) != 0
+                    || summary.finesByMember().get(members.get(0).getId()).compareTo(new BigDecimal("6.75")) != 0)
+                throw new AssertionError("Fines should be summed per member");
+            if (summary.totalFines().compareTo(new BigDecimal("749.25")) != 0)
+                throw new AssertionError("Unexpected total fines: " + summary.totalFines());
+            if (members.get(1).getOutstandingFines().compareTo(new BigDecimal("7.50")) != 0)
+                throw new AssertionError("Member should be charged the summed fine");
+            if (catalog.availableCount(b.getId()) != 1000 || !ls.overdueLoans().isEmpty())
+                throw new AssertionError("Every copy should be back on the shelf");
+            if (ls.returnCopies(List.of(loanIds.get(1))).returned() != 0)
+                throw new AssertionError("A second run should skip returned loans");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 27: Failed Return Leaves Loan Active
+     * <p>
+     * Aim: Verify that returning a loan whose copy was marked lost fails
+     * without marking the loan returned, so the member's active list and loan
+     * count stay in step and the member can still borrow up to the limit.
+     * </p>
+     */
+    private static void testFailedReturnKeepsLoanActive() {
+        System.out.print("27. Test Failed Return Keeps Loan Active: ");
+        try {
+            var ctx = setupContext();
+            Book b = new Book("Lost", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            ctx.catalog().addTitle(b, 3);
+            List<UUID> copies = ctx.catalog().copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+            Member m = new Member("Lo", "St", "lost@test.com", "p", 2, LocalDate.now().plusYears(1));
+
+            Loan loan = ctx.loanService().loanCopy(copies.get(0), m);
+            ctx.catalog().markLost(copies.get(0));
+            boolean failed = false;
+            try {
+                ctx.loanService().returnCopy(loan.getId());
+            } catch (IllegalArgumentException expected) {
+                failed = true;
+            }
+            if (!failed || loan.isReturned())
+                throw new AssertionError("Return of a lost copy should fail and leave the loan open");
+            if (!ctx.loanService().activeLoans(m.getId()).equals(List.of(loan)))
+                throw new AssertionError("Loan should stay active");
+
+            ctx.loanService().loanCopy(copies.get(1), m);
+            boolean limited = false;
+            try {
+                ctx.loanService().loanCopy(copies.get(2), m);
+            } catch (IllegalArgumentException expected) {
+                limited = true;
+            }
+            if (!limited)
+                throw new AssertionError("The open loan should still count toward the limit");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 28: Bulk Return With a Lost Copy
+     * <p>
+     * Aim: Verify that when one copy in a member's drop-box batch was marked
+     * lost, that loan is skipped and stays open, while the member's other
+     * loans are returned and their fines are still charged.
+     * </p>
+     */
+    private static void testBulkReturnSkipsLostCopy() {
+        System.out.print("28. Test Bulk Return With a Lost Copy: ");
+        try {
+            LoanRepository loans = new InMemoryLoanRepository();
+            InventoryRepository inv = new InMemoryInventoryRepository();
+            CatalogService catalog = new CatalogService(new InMemoryMediaRepository(), inv);
+            LocalDate start = LocalDate.of(2023, 1, 1);
+            LocalDate[] today = { start };
+            LoanService ls = new LoanService(inv, loans, new StandardLoanRule(loans, 7),
+                    new FlatFinePolicy(new BigDecimal("1.00"), 0), () -> today[0]);
+            Book b = new Book("Drop", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            catalog.addTitle(b, 3);
+            List<UUID> copies = catalog.copiesOf(b.getId()).stream().map(h -> h.getId()).toList();
+            Member m = new Member("Lo", "St", "droplost@test.com", "pass");
+            List<Loan> lent = ls.loanCopies(m, copies);
+            catalog.markLost(copies.get(1));
+
+            today[0] = start.plusDays(10);
+            ReturnSummary summary = ls.returnCopies(lent.stream().map(Loan::getId).toList());
+
+            if (summary.returned() != 2 || !summary.skipped().equals(List.of(lent.get(1).getId())))
+                throw new AssertionError("Only the lost copy's loan should be skipped");
+            if (m.getOutstandingFines().compareTo(new BigDecimal("6.00")) != 0
+                    || summary.totalFines().compareTo(new BigDecimal("6.00")) != 0)
+                throw new AssertionError("Fines of the returned loans should be charged, got "
+                        + m.getOutstandingFines());
+            if (!ls.activeLoans(m.getId()).equals(List.of(lent.get(1))) || lent.get(1).isReturned())
+                throw new AssertionError("The skipped loan should stay open");
+            if (ls.loanHistory(m.getId()).size() != 2)
+                throw new AssertionError("Only returned loans should be archived");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 29: Due-Date Index Under Concurrent Save and Archive
+     * <p>
+     * Aim: Verify that archiving the last loan of a due date while another
+     * loan with the same due date is saved never drops the new loan from the
+     * concurrent repository's due-date index.
+     * </p>
+     */
+    private static void testConcurrentDueDateIndex() {
+        System.out.print("29. Test Concurrent Due-Date Index: ");
+        try {
+            Book b = new Book("Race", List.of("A"), 2020, Collections.emptySet(), "1", "P");
+            Member m = new Member("Ra", "Ce", "race@test.com", "pass");
+            LocalDate today = LocalDate.now();
+            LocalDate due = today.plusDays(7);
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            for (int trial = 0; trial < 2000; trial++) {
+                LoanRepository loans = new ConcurrentLoanRepository();
+                Loan old = loans.save(new Loan(new Holding(b), m, today, due));
+                old.markReturned(today);
+                Loan fresh = new Loan(new Holding(b), m, today, due);
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> archiving = pool.submit(() -> {
+                    start.await();
+                    loans.archive(old, BigDecimal.ZERO);
+                    return null;
+                });
+                Future<?> saving = pool.submit(() -> {
+                    start.await();
+                    loans.save(fresh);
+                    return null;
+                });
+                start.countDown();
+                archiving.get();
+                saving.get();
+                if (!loans.findDueBetween(due, due).equals(List.of(fresh)))
+                    throw new AssertionError("New loan lost from the due-date index in trial " + trial);
+            }
+            pool.shutdown();
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
     // --- Helper Methods ---
 
     private static CatalogService setupCatalog() {
@@ -1,16 +1,37 @@
 package test.unit;
 
+import domain.Query;
+import domain.query.And;
+import domain.query.Expr;
+import domain.query.Not;
+import domain.query.QueryParser;
 import domain.inventory.Holding;
 import domain.inventory.HoldingStatus;
+import domain.loan.Loan;
+import domain.loan.LoanRecord;
 import domain.media.Book;
 import domain.user.Member;
 import policies.rules.StandardLoanRule;
+import repo.InventoryRepository;
 import repo.LoanRepository;
+import repo.archive.LoanArchive;
+import repo.concurrent.ConcurrentLoanRepository;
+import repo.index.BkTree;
+import repo.index.PrefixIndex;
+import repo.index.TrigramIndex;
+import repo.inmem.InMemoryInventoryRepository;
 import repo.inmem.InMemoryLoanRepository;
+import repo.inmem.SegmentedStore;
+import util.TimingWheel;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Unit tests focused on verifying the logic of individual methods and classes
@@ -28,6 +49,16 @@ public class UnitTests {
         testLoanRuleDueDateReturnRange();
         testLoanRuleBlockedMember();
         testHoldingStatusTransitionsAndTypes();
+        testPrefixIndexCompletion();
+        testAccentInsensitiveMatch();
+        testInventoryStatusCounters();
+        testBkTreeLookup();
+        testSegmentedStoreScan();
+        testQueryParser();
+        testActiveLoanIndex();
+        testTimingWheel();
+        testLoanArchive();
+        testTrigramReindex();
         System.out.println("Unit Tests Completed.\n");
     }
 
@@ -233,4 +264,429 @@ public class UnitTests {
             System.out.println("FAIL - " + e.getMessage());
         }
     }
+
+    /**
+     * Test Case 6: Prefix Completion (Return Order and Limit)
+     * <p>
+     * Aim: Verify that PrefixIndex returns completions in alphabetical order,
+     * honours the limit, shares phrases between documents and forgets phrases
+     * that are no longer referenced.
+     * </p>
+     */
+    private static void testPrefixIndexCompletion() {
+        System.out.print("6. Test Prefix Index Completion: ");
+        try {
+            PrefixIndex index = new PrefixIndex();
+            UUID a = UUID.randomUUID();
+            UUID b = UUID.randomUUID();
+            index.index(a, List.of("The Hobbit", "J. R. R. Tolkien"));
+            index.index(b, List.of("The Hunger Games", "J. R. R. Tolkien"));
+
+            List<String> result = index.complete("the h", 10);
+            if (!result.equals(List.of("The Hobbit", "The Hunger Games")))
+                throw new AssertionError("Unexpected completions: " + result);
+
+            // Limit is honoured
+            if (index.complete("the", 1).size() != 1)
+                throw new AssertionError("Limit should cap completions");
+
+            // Shared creator survives until its last document is removed
+            index.remove(a);
+            if (index.complete("j. r", 5).size() != 1)
+                throw new AssertionError("Shared phrase should remain");
+            index.remove(b);
+            if (!index.complete("", 5).isEmpty())
+                throw new AssertionError("Index should be empty");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 7: Accent-Insensitive Matching (Return Value)
+     * <p>
+     * Aim: Verify that MediaItem.matches folds accents and case on both sides and
+     * that the search keys follow changes made through the setters.
+     * </p>
+     */
+    private static void testAccentInsensitiveMatch() {
+        System.out.print("7. Test Accent-Insensitive Match: ");
+        try {
+            Book b = new Book("Crème Brûlée", List.of("Beyoncé"), 2020, Collections.emptySet(), "ISBN", "Pub");
+
+            if (!b.matches(Query.byCreator("beyonce")))
+                throw new AssertionError("'beyonce' should match 'Beyoncé'");
+            if (!b.matches(Query.byTitle("CREME BRU")))
+                throw new AssertionError("Folded title prefix should match");
+            if (!b.matches(Query.byTitle("brûlée")))
+                throw new AssertionError("Accented query should match too");
+
+            // Keys are recomputed by the setters
+            b.setCreators(List.of("Zoë"));
+            if (b.matches(Query.byCreator("beyonce")) || !b.matches(Query.byCreator("zoe")))
+                throw new AssertionError("Creator keys should follow setCreators");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 8: Per-Title Status Counters (Return Value)
+     * <p>
+     * Aim: Verify that InMemoryInventoryRepository keeps its per-status counters
+     * in step with holding transitions, even when the holding is not saved again.
+     * </p>
+     */
+    private static void testInventoryStatusCounters() {
+        System.out.print("8. Test Inventory Status Counters: ");
+        try {
+            InventoryRepository inv = new InMemoryInventoryRepository();
+            Book b = new Book("Title", List.of("A"), 2022, Collections.emptySet(), "ISBN", "Pub");
+            Holding h1 = inv.save(new Holding(b));
+            Holding h2 = inv.save(new Holding(b));
+            inv.save(h1); // re-saving must not double count
+
+            if (inv.countByStatus(b.getId(), HoldingStatus.AVAILABLE) != 2)
+                throw new AssertionError("Expected 2 available");
+
+            h1.markOnLoan();
+            h2.markDamaged();
+            if (inv.countByStatus(b.getId(), HoldingStatus.AVAILABLE) != 0
+                    || inv.countByStatus(b.getId(), HoldingStatus.ON_LOAN) != 1
+                    || inv.countByStatus(b.getId(), HoldingStatus.DAMAGED) != 1)
+                throw new AssertionError("Counters should follow transitions");
+            if (inv.findFirstByStatus(b.getId(), HoldingStatus.AVAILABLE).isPresent())
+                throw new AssertionError("No copy should be available");
+
+            h1.markReturned();
+            if (inv.findFirstByStatus(b.getId(), HoldingStatus.AVAILABLE).orElse(null) != h1)
+                throw new AssertionError("Returned copy should be available again");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 9: BK-Tree Fuzzy Lookup (Return Value)
+     * <p>
+     * Aim: Verify the Levenshtein distance and that BkTree returns exactly the
+     * dictionary terms within the edit bound.
+     * </p>
+     */
+    private static void testBkTreeLookup() {
+        System.out.print("9. Test BK-Tree Lookup: ");
+        try {
+            if (BkTree.distance("andersen", "anderson") != 1 || BkTree.distance("kitten", "sitting") != 3
+                    || BkTree.distance("", "abc") != 3)
+                throw new AssertionError("Wrong edit distance");
+
+            BkTree tree = new BkTree();
+            for (String t : List.of("anderson", "andersen", "henderson", "anders", "tolkien", "anderson")) {
+                tree.add(t);
+            }
+            if (tree.size() != 5)
+                throw new AssertionError("Duplicates should not be added");
+
+            Map<String, Integer> found = tree.search("andersn", 1);
+            if (!found.equals(Map.of("anderson", 1, "andersen", 1, "anders", 1)))
+                throw new AssertionError("Unexpected matches: " + found);
+            if (!tree.search("tolkein", 1).isEmpty() || !tree.search("tolkein", 2).containsKey("tolkien"))
+                throw new AssertionError("Edit bound not honoured");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 10: Segmented Parallel Scan (Return Order)
+     * <p>
+     * Aim: Verify that a parallel scan over many segments returns the same
+     * values, in insertion order, as a sequential one, and that replacing a
+     * value keeps its slot.
+     * </p>
+     */
+    private static void testSegmentedStoreScan() {
+        System.out.print("10. Test Segmented Store Scan: ");
+        try {
+            SegmentedStore<Integer> parallel = new SegmentedStore<>(7, 0);
+            SegmentedStore<Integer> sequential = new SegmentedStore<>(7, Integer.MAX_VALUE);
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                parallel.put(id, i);
+                sequential.put(id, i);
+            }
+            parallel.put(ids.get(3), 3000);
+
+            List<Integer> evens = parallel.filter(v -> v % 2 == 0);
+            if (evens.size() != 501 || !evens.subList(0, 4).equals(List.of(0, 2, 3000, 4)))
+                throw new AssertionError("Parallel scan out of order: " + evens.subList(0, 4));
+            sequential.put(ids.get(3), 3000);
+            if (!evens.equals(sequential.filter(v -> v % 2 == 0)))
+                throw new AssertionError("Parallel and sequential scans differ");
+            if (parallel.size() != 1000 || parallel.get(ids.get(999)).intValue() != 999)
+                throw new AssertionError("Lookup by id failed");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 11: Query Language Parsing (Return Value and Errors)
+     * <p>
+     * Aim: Verify operator precedence, implicit AND, negation and field
+     * values, and that malformed queries are rejected with a clear message.
+     * </p>
+     */
+    private static void testQueryParser() {
+        System.out.print("11. Test Query Parser: ");
+        try {
+            Expr e = QueryParser.parse("title:River AND creator:williams year:2010..2020 -category:horror type:BOOK");
+            if (!(e instanceof And a) || a.parts().size() != 5 || !(a.parts().get(3) instanceof Not))
+                throw new AssertionError("Unexpected tree: " + e);
+            if (!e.toString().equals(
+                    "title:river AND creator:williams AND year:2010..2020 AND -category:HORROR AND type:book"))
+                throw new AssertionError("Unexpected rendering: " + e);
+
+            // AND binds tighter than OR; parentheses and quotes are honoured
+            String s = QueryParser.parse("a b OR title:\"the river\" (year:..1999 OR NOT type:cd)").toString();
+            if (!s.equals("(a AND b) OR (title:\"the river\" AND (year:..1999 OR -type:cd))"))
+                throw new AssertionError("Unexpected precedence: " + s);
+
+            for (String bad : List.of("", "year:20x0", "category:NOPE", "type:vinyl", "(title:x", "title:x)", "title:x AND")) {
+                try {
+                    QueryParser.parse(bad);
+                    throw new AssertionError("Should reject: " + bad);
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 12: Active Loans by Member Index (Return Value)
+     * <p>
+     * Aim: Verify that both loan repositories list and count only a member's
+     * unreturned loans, drop a loan from the index once it is archived, and
+     * save a batch of loans entirely or not at all.
+     * </p>
+     */
+    private static void testActiveLoanIndex() {
+        System.out.print("12. Test Active Loan Index: ");
+        try {
+            for (LoanRepository repo : List.of(new InMemoryLoanRepository(), new ConcurrentLoanRepository())) {
+                Book b = new Book("Title", List.of("A"), 2022, Collections.emptySet(), "ISBN", "Pub");
+                Member m = new Member("Idx", "User", "idx@test.com", "pass");
+                Member other = new Member("Other", "User", "other@test.com", "pass");
+                LocalDate today = LocalDate.now();
+                Loan l1 = repo.save(new Loan(new Holding(b), m, today, today.plusDays(7)));
+                Loan l2 = repo.save(new Loan(new Holding(b), m, today, today.plusDays(7)));
+                repo.save(new Loan(new Holding(b), other, today, today.plusDays(7)));
+
+                if (repo.countActiveByMemberId(m.getId()) != 2 || repo.findActiveByMemberId(m.getId()).size() != 2)
+                    throw new AssertionError("Expected 2 active loans");
+
+                l1.markReturned(today);
+                if (repo.countActiveByMemberId(m.getId()) != repo.findActiveByMemberId(m.getId()).size())
+                    throw new AssertionError("Count should agree with the active list before the save");
+                boolean rejected = false;
+                try {
+                    repo.save(l1);
+                } catch (IllegalArgumentException expected) {
+                    rejected = true;
+                }
+                if (!rejected)
+                    throw new AssertionError("Saving a returned loan should be rejected");
+                repo.archive(l1, BigDecimal.ZERO);
+                if (repo.countActiveByMemberId(m.getId()) != 1
+                        || !repo.findActiveByMemberId(m.getId()).equals(List.of(l2)))
+                    throw new AssertionError("Returned loan should leave the index");
+                if (repo.countActiveByMemberId(other.getId()) != 1 || repo.countActiveByMemberId(UUID.randomUUID()) != 0)
+                    throw new AssertionError("Members must not share loans");
+                if (repo.findById(l1.getId()).isPresent() || repo.findRecord(l1.getId()).isEmpty())
+                    throw new AssertionError("Returned loan should move to the history");
+
+                Loan fresh = new Loan(new Holding(b), m, today, today.plusDays(7));
+                Loan stale = new Loan(new Holding(b), m, today, today.plusDays(7));
+                stale.markReturned(today);
+                boolean batchRejected = false;
+                try {
+                    repo.saveAll(List.of(fresh, stale));
+                } catch (IllegalArgumentException expected) {
+                    batchRejected = true;
+                }
+                if (!batchRejected || repo.findById(fresh.getId()).isPresent() || repo.countActiveByMemberId(m.getId()) != 1)
+                    throw new AssertionError("A rejected batch should save no loans");
+                repo.saveAll(List.of(fresh));
+                if (repo.countActiveByMemberId(m.getId()) != 2)
+                    throw new AssertionError("A valid batch should be saved");
+            }
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 13: Timing Wheel Scheduling (Return Value)
+     * <p>
+     * Aim: Verify that timers fire on their exact tick at every wheel level,
+     * including deadlines beyond the top level, and that cancelled timers
+     * never fire.
+     * </p>
+     */
+    private static void testTimingWheel() {
+        System.out.print("13. Test Timing Wheel: ");
+        try {
+            TimingWheel<Long> wheel = new TimingWheel<>(100);
+            long[] deadlines = { 101, 163, 164, 4_000, 5_000, 300_000, 20_000_000 };
+            for (long d : deadlines) {
+                wheel.schedule(d, d);
+            }
+            TimingWheel.Timer<Long> cancelled = wheel.schedule(500, 500L);
+            wheel.schedule(50, 50L); // already due
+            if (!cancelled.cancel() || cancelled.cancel())
+                throw new AssertionError("Cancel should succeed exactly once");
+            if (wheel.size() != deadlines.length + 1)
+                throw new AssertionError("Unexpected pending count: " + wheel.size());
+
+            if (!wheel.advanceTo(100).equals(List.of(50L)))
+                throw new AssertionError("Past deadline should fire on the next advance");
+            for (long d : deadlines) {
+                if (!wheel.advanceTo(d - 1).isEmpty())
+                    throw new AssertionError("Timer fired early: " + d);
+                if (!wheel.advanceTo(d).equals(List.of(d)))
+                    throw new AssertionError("Timer did not fire on its tick: " + d);
+            }
+            if (wheel.size() != 0)
+                throw new AssertionError("All timers should have fired");
+
+            wheel.schedule(wheel.now() + 10, 1L);
+            wheel.schedule(wheel.now() + 5, 2L);
+            if (!wheel.advanceTo(wheel.now() + 100).equals(List.of(2L, 1L)))
+                throw new AssertionError("Timers should fire in deadline order");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 14: Columnar Loan Archive (Return Value)
+     * <p>
+     * Aim: Verify that returned loans decode from the archive columns with
+     * their ids, dates and fine intact, that member history keeps return
+     * order across array growth, and that active loans are rejected.
+     * </p>
+     */
+    private static void testLoanArchive() {
+        System.out.print("14. Test Loan Archive: ");
+        try {
+            LoanArchive archive = new LoanArchive();
+            Book b = new Book("Title", List.of("A"), 2022, Collections.emptySet(), "ISBN", "Pub");
+            Member m = new Member("Arc", "Hive", "arc@test.com", "pass");
+            Member other = new Member("Oth", "Er", "oth@test.com", "pass");
+            LocalDate day = LocalDate.of(2024, 2, 1);
+            List<UUID> mine = new ArrayList<>();
+            for (int i = 0; i < 150; i++) {
+                Loan loan = new Loan(new Holding(b), i % 3 == 0 ? m : other, day, day.plusDays(7));
+                loan.markReturned(day.plusDays(i % 10));
+                archive.append(loan, new BigDecimal(i).movePointLeft(2));
+                if (i % 3 == 0) {
+                    mine.add(loan.getId());
+                }
+            }
+
+            Loan late = new Loan(new Holding(b), m, day, day.plusDays(7));
+            late.markReturned(day.plusDays(9));
+            archive.append(late, new BigDecimal("1.005"));
+            LoanRecord r = archive.find(late.getId()).orElseThrow();
+            if (!r.holdingId().equals(late.getHolding().getId()) || !r.memberId().equals(m.getId())
+                    || !r.loanedOn().equals(day) || !r.dueOn().equals(day.plusDays(7))
+                    || !r.returnedOn().equals(day.plusDays(9)) || !r.returnedLate())
+                throw new AssertionError("Record columns do not round-trip");
+            if (r.fineCents() != 101 || r.fine().compareTo(new BigDecimal("1.01")) != 0)
+                throw new AssertionError("Fine should be stored in rounded cents, got " + r.fineCents());
+
+            mine.add(late.getId());
+            List<UUID> history = archive.byMember(m.getId()).stream().map(LoanRecord::loanId).toList();
+            if (!history.equals(mine) || archive.size() != 151)
+                throw new AssertionError("Member history should list returns in order");
+            for (UUID id : mine) {
+                if (!archive.find(id).map(LoanRecord::loanId).orElseThrow().equals(id))
+                    throw new AssertionError("Every archived loan should be found by id");
+            }
+            if (archive.find(UUID.randomUUID()).isPresent() || !archive.byMember(UUID.randomUUID()).isEmpty())
+                throw new AssertionError("Unknown ids should find nothing");
+
+            boolean rejected = false;
+            try {
+                archive.append(new Loan(new Holding(b), m, day, day), BigDecimal.ZERO);
+            } catch (IllegalArgumentException expected) {
+                rejected = true;
+            }
+            if (!rejected)
+                throw new AssertionError("Active loans must not be archived");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Test Case 15: Trigram Index Re-Indexing (Return Value)
+     * <p>
+     * Aim: Verify that substring candidates follow a document across
+     * re-indexing and removal, so grams of a replaced title no longer match
+     * and shared grams keep the other documents.
+     * </p>
+     */
+    private static void testTrigramReindex() {
+        System.out.print("15. Test Trigram Re-Index: ");
+        try {
+            TrigramIndex grams = new TrigramIndex();
+            UUID a = UUID.randomUUID();
+            UUID b = UUID.randomUUID();
+            grams.index(a, List.of("Dune Messiah", "Frank Herbert"));
+            grams.index(b, List.of("Children of Dune"));
+            if (!grams.candidates("dune").equals(Set.of(a, b)) || !grams.candidates("herb").equals(Set.of(a)))
+                throw new AssertionError("Both documents should match their substrings");
+            if (grams.candidates("du") != null || grams.estimate("dune") != 2)
+                throw new AssertionError("Short queries give no answer and estimates count postings");
+
+            grams.index(a, List.of("Solaris"));
+            if (!grams.candidates("dune").equals(Set.of(b)) || !grams.candidates("herb").isEmpty())
+                throw new AssertionError("Re-indexing should drop the old grams");
+            if (!grams.candidates("olar").equals(Set.of(a)))
+                throw new AssertionError("Re-indexing should add the new grams");
+
+            grams.remove(b);
+            grams.remove(b);
+            if (!grams.candidates("dune").isEmpty() || grams.estimate("dune") != 0)
+                throw new AssertionError("Removed documents should not match");
+
+            System.out.println("PASS");
+        } catch (Exception e) {
+            System.out.println("FAIL - " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package util;
+
+import java.util.Locale;
+
+/**
+ * Utility for turning ISBNs into a single lookup key.
+ * ISBN-10 and ISBN-13 forms of the same book produce the same key, so a
+ * desk scan of either finds it.
+ */
+public final class Isbn {
+    private Isbn() {
+    }
+
+    /**
+     * Normalizes an ISBN to its 13-digit form without separators.
+     * Hyphens and spaces are ignored; an ISBN-10 is converted to its "978"
+     * ISBN-13 with a recomputed check digit. Anything that is not shaped like
+     * an ISBN is returned stripped and upper-cased, so it still matches itself.
+     *
+     * @param raw the ISBN as printed or scanned
+     * @return the lookup key, or null if the input is null or blank
+     */
+    public static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '-' && !Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        String s = sb.toString().toUpperCase(Locale.ROOT);
+        if (s.startsWith("ISBN")) {
+            s = s.substring(4);
+        }
+        if (s.isEmpty()) {
+            return null;
+        }
+        if (s.length() == 10 && digits(s, 9) && (Character.isDigit(s.charAt(9)) || s.charAt(9) == 'X')) {
+            String body = "978" + s.substring(0, 9);
+            return body + checkDigit13(body);
+        }
+        return s;
+    }
+
+    private static boolean digits(String s, int n) {
+        for (int i = 0; i < n; i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ISBN-13 check digit: weights alternate 1 and 3
+    private static char checkDigit13(String first12) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (first12.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
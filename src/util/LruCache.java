@@ -0,0 +1,106 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small bounded cache that evicts the least recently used entry once full.
+ * Backed by an access-ordered LinkedHashMap; all operations are synchronized.
+ * Keeps hit, miss and eviction counters for tuning the capacity.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class LruCache<K, V> {
+    private final Map<K, V> map;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Snapshot of a cache's counters.
+     *
+     * @param hits      lookups that found an entry
+     * @param misses    lookups that found nothing
+     * @param evictions entries dropped to stay within capacity
+     * @param size      current number of entries
+     * @param capacity  maximum number of entries
+     */
+    public record Stats(long hits, long misses, long evictions, int size, int capacity) {
+        /**
+         * Fraction of lookups that were hits.
+         *
+         * @return hit ratio between 0 and 1 (0 if there were no lookups)
+         */
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final int capacity;
+
+    /**
+     * Creates a cache holding at most the given number of entries.
+     *
+     * @param capacity maximum number of entries
+     */
+    public LruCache(int capacity) {
+        Validation.require(capacity > 0, "capacity must be > 0");
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached value and marks it as recently used.
+     *
+     * @param key the key
+     * @return the value, or null if absent
+     */
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value, evicting the least recently used entry if needed.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return entry count
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the current counters.
+     *
+     * @return a snapshot of hits, misses, evictions and size
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, map.size(), capacity);
+    }
+}
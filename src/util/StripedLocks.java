@@ -0,0 +1,62 @@
+package util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of locks shared out by key hash.
+ * Work on the same key is always serialized, while work on different keys
+ * usually takes different locks and runs in parallel; memory stays constant
+ * however many keys there are.
+ */
+public final class StripedLocks {
+    private final ReentrantLock[] locks;
+
+    /**
+     * Creates a pool of locks.
+     *
+     * @param stripes minimum number of locks (rounded up to a power of two)
+     */
+    public StripedLocks(int stripes) {
+        Validation.require(stripes > 0, "stripes must be > 0");
+        int n = Integer.highestOneBit(stripes);
+        if (n < stripes) {
+            n <<= 1;
+        }
+        locks = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding a key.
+     *
+     * @param key the key (must not be null)
+     * @return the key's lock
+     */
+    public ReentrantLock lockFor(Object key) {
+        int h = key.hashCode();
+        // Spread the high bits so keys differing only there do not collide
+        h ^= h >>> 16;
+        return locks[h & (locks.length - 1)];
+    }
+
+    /**
+     * Runs an action while holding the lock of a key.
+     *
+     * @param key    the key
+     * @param action the work to serialize
+     * @param <T>    the result type
+     * @return the action's result
+     */
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility for turning free text into normalized search keys and terms.
+ * Shared by queries and catalog indexes so both sides agree on one form.
+ */
+public final class TextNormalizer {
+    // Combining marks left behind once accented letters are decomposed
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Trims, lowercases and removes accents from a string, so that
+     * "Beyoncé" and "beyonce" produce the same key.
+     *
+     * @param s raw text
+     * @return normalized text, or null if the input is null or blank
+     */
+    public static String normalize(String s) {
+        if (s == null)
+            return null;
+        String t = foldAccents(s.trim().toLowerCase(Locale.ROOT));
+        return t.isEmpty() ? null : t;
+    }
+
+    /**
+     * Removes diacritical marks (e.g. "é" becomes "e").
+     * Pure ASCII input is returned as is without decomposition.
+     *
+     * @param s text to fold
+     * @return text without combining marks
+     */
+    public static String foldAccents(String s) {
+        boolean ascii = true;
+        for (int i = 0; i < s.length() && ascii; i++) {
+            ascii = s.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return s;
+        }
+        return MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Splits text into normalized word terms (runs of letters and digits).
+     *
+     * @param s raw or normalized text
+     * @return list of terms in order of appearance (may contain duplicates)
+     */
+    public static List<String> tokenize(String s) {
+        List<String> terms = new ArrayList<>();
+        String n = normalize(s);
+        if (n == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i < n.length(); i++) {
+            if (Character.isLetterOrDigit(n.charAt(i))) {
+                if (start < 0)
+                    start = i;
+            } else if (start >= 0) {
+                terms.add(n.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            terms.add(n.substring(start));
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,240 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for timers on a whole-number tick scale (for
+ * example epoch days).
+ * Four levels of 64 slots each cover 64, 4096, 262144 and 16777216 ticks
+ * ahead. A timer goes into the slot of the coarsest level it needs, and is
+ * moved down a level whenever the wheel reaches its slot. Timers further out
+ * than the top level are parked in the last top-level slot and placed again
+ * once reached. Scheduling and cancelling are O(1): every slot is an
+ * intrusive doubly linked list. Advancing costs one step per tick plus the
+ * timers it moves or fires, and jumps straight to the target when nothing is
+ * pending.
+ * All operations are synchronized; fired payloads are returned to the caller
+ * rather than called back, so no user code runs under the wheel's lock.
+ *
+ * @param <T> the payload type
+ */
+public final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    // Ticks ahead covered by all levels together
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final List<List<Bucket<T>>> wheels = new ArrayList<>(LEVELS);
+    // Timers scheduled at or before the current tick, fired on the next advance
+    private final Bucket<T> expired = new Bucket<>();
+    private long now;
+    private int size;
+
+    /**
+     * A scheduled timer. Use it to cancel the timer before it fires.
+     *
+     * @param <T> the payload type
+     */
+    public static final class Timer<T> {
+        private final TimingWheel<T> owner;
+        private final long deadline;
+        private final T payload;
+        private Bucket<T> bucket;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(TimingWheel<T> owner, long deadline, T payload) {
+            this.owner = owner;
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        /**
+         * Gets the tick at which the timer fires.
+         *
+         * @return the deadline tick
+         */
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * Gets the value returned when the timer fires.
+         *
+         * @return the payload
+         */
+        public T payload() {
+            return payload;
+        }
+
+        /**
+         * Cancels the timer in constant time.
+         *
+         * @return true if the timer was pending, false if it already fired or
+         *         was cancelled
+         */
+        public boolean cancel() {
+            return owner.cancel(this);
+        }
+    }
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param start the current tick
+     */
+    public TimingWheel(long start) {
+        for (int level = 0; level < LEVELS; level++) {
+            List<Bucket<T>> slots = new ArrayList<>(SLOTS);
+            for (int i = 0; i < SLOTS; i++) {
+                slots.add(new Bucket<>());
+            }
+            wheels.add(slots);
+        }
+        this.now = start;
+    }
+
+    /**
+     * Schedules a payload to fire once the wheel reaches a tick.
+     * A deadline at or before the current tick fires on the next advance.
+     *
+     * @param deadline the tick at which to fire
+     * @param payload  the value to return when fired
+     * @return a handle for cancelling the timer
+     */
+    public synchronized Timer<T> schedule(long deadline, T payload) {
+        Timer<T> timer = new Timer<>(this, deadline, payload);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Moves the wheel forward and collects every timer that falls due.
+     * Moving to a tick at or before the current one only fires timers already
+     * due.
+     *
+     * @param target the tick to advance to
+     * @return payloads of the fired timers, earliest deadline first
+     */
+    public synchronized List<T> advanceTo(long target) {
+        List<T> fired = new ArrayList<>();
+        drain(expired, fired);
+        while (now < target) {
+            if (size == 0) {
+                now = target;
+                break;
+            }
+            now++;
+            // On each level's wrap-around, move the next coarse slot down
+            for (int level = 1; level < LEVELS; level++) {
+                if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level);
+            }
+            // A cascaded timer whose deadline is this very tick lands in expired
+            drain(expired, fired);
+            drain(slot(0, now), fired);
+        }
+        return fired;
+    }
+
+    /**
+     * Gets the current tick.
+     *
+     * @return the tick the wheel last advanced to
+     */
+    public synchronized long now() {
+        return now;
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return pending timer count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized boolean cancel(Timer<T> timer) {
+        if (timer.bucket == null) {
+            return false;
+        }
+        timer.bucket.remove(timer);
+        size--;
+        return true;
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadline - now;
+        if (delta <= 0) {
+            expired.add(timer);
+            return;
+        }
+        long tick = delta < SPAN ? timer.deadline : now + SPAN - 1;
+        int level = (63 - Long.numberOfLeadingZeros(tick - now)) / SLOT_BITS;
+        slot(level, tick).add(timer);
+    }
+
+    private Bucket<T> slot(int level, long tick) {
+        return wheels.get(level).get((int) (tick >> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    // Re-places the timers of the current slot of a level on finer levels
+    private void cascade(int level) {
+        Bucket<T> bucket = slot(level, now);
+        Timer<T> timer = bucket.removeFirst();
+        while (timer != null) {
+            place(timer);
+            timer = bucket.removeFirst();
+        }
+    }
+
+    private void drain(Bucket<T> bucket, List<T> fired) {
+        Timer<T> timer = bucket.removeFirst();
+        while (timer != null) {
+            fired.add(timer.payload);
+            size--;
+            timer = bucket.removeFirst();
+        }
+    }
+
+    // Circular list of timers around a sentinel node
+    private static final class Bucket<T> {
+        private final Timer<T> head = new Timer<>(null, 0, null);
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = head.prev;
+            timer.next = head;
+            head.prev.next = timer;
+            head.prev = timer;
+        }
+
+        void remove(Timer<T> timer) {
+            timer.prev.next = timer.next;
+            timer.next.prev = timer.prev;
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+        }
+
+        Timer<T> removeFirst() {
+            if (head.next == head) {
+                return null;
+            }
+            Timer<T> first = head.next;
+            remove(first);
+            return first;
+        }
+    }
+}